@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware;
+
+import io.javalin.Javalin;
+import it.workingsoftware.config.AppConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Boots the application on a temporary SQLite file and plays whole games against it from many clients at once:
+ * create an adventurer, start an encounter, drink a potion and attack until someone dies, then start over.
+ * <p>
+ * Options, all in {@code --name=value} form:
+ * <ul>
+ *     <li>{@code --clients} concurrent clients (default 16)</li>
+ *     <li>{@code --warmup} seconds played before measuring (default 5)</li>
+ *     <li>{@code --duration} seconds measured (default 20)</li>
+ *     <li>{@code --readers} read-only connections in the pool (default number of CPUs)</li>
+ *     <li>{@code --cache} {@code true} to enable the write-behind cache (default false)</li>
+ *     <li>{@code --eventSourcing} {@code true} to store adventurers as events (default false)</li>
+ *     <li>{@code --journal} {@code true} to keep adventurers and encounters in memory-mapped journals (default false)</li>
+ *     <li>{@code --virtualThreads} {@code true} to handle requests on virtual threads (default false)</li>
+ *     <li>{@code --websocket} {@code true} to play each encounter over a WebSocket session, where
+ *     {@code start-encounter} is the time to open it (default false)</li>
+ * </ul>
+ */
+public class LoadTest {
+    private static final List<String> ENDPOINTS = List.of("create", "start-encounter", "attack", "heal");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] WEAPONS = {"axe", "daggers", "sword"};
+    private static final int MAX_ATTACKS = 100;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        int readers = Integer.parseInt(options.getOrDefault("readers",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        boolean cache = Boolean.parseBoolean(options.getOrDefault("cache", "false"));
+        boolean eventSourcing = Boolean.parseBoolean(options.getOrDefault("eventSourcing", "false"));
+        boolean journal = Boolean.parseBoolean(options.getOrDefault("journal", "false"));
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtualThreads", "false"));
+        boolean websocket = Boolean.parseBoolean(options.getOrDefault("websocket", "false"));
+
+        Path database = Files.createTempFile("combat-load", ".db");
+        Files.delete(database);
+        Path journalDir = journal ? Files.createTempDirectory("combat-load") : null;
+        AppConfig config = new AppConfig("jdbc:sqlite:" + database, readers, eventSourcing,
+            journalDir == null ? null : journalDir.toString(), cache, 10_000,
+            Duration.ofMinutes(5), Duration.ofMillis(200), 0, virtualThreads);
+        Javalin app = App.start(config);
+        try {
+            System.out.printf("%d clients, %d readers, event sourcing %s, journal %s, cache %s, virtual threads %s, "
+                + "websocket %s, %ds warmup, %ds measured%n", clients, readers, eventSourcing ? "on" : "off",
+                journal ? "on" : "off", cache ? "on" : "off", virtualThreads ? "on" : "off", websocket ? "on" : "off",
+                warmup.toSeconds(), duration.toSeconds());
+            run("localhost:" + app.port(), clients, warmup, duration, websocket);
+        } finally {
+            app.stop();
+            for (String suffix : new String[]{"", "-wal", "-shm"}) {
+                Files.deleteIfExists(Path.of(database + suffix));
+            }
+            if (journalDir != null) {
+                for (String file : new String[]{"adventurers.journal", "encounters.journal"}) {
+                    Files.deleteIfExists(journalDir.resolve(file));
+                }
+                Files.delete(journalDir);
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static void run(String host, int clients, Duration warmup, Duration duration, boolean websocket)
+        throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        List<Client> workers = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            workers.add(new Client(httpClient, host, measureFrom, measureUntil, websocket));
+        }
+        List<Thread> threads = workers.stream().map(worker -> new Thread(worker, "load-client")).toList();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report(workers, duration);
+    }
+
+    private static void report(List<Client> workers, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        long totalRequests = 0;
+        long errors = 0;
+        System.out.printf("%-16s %10s %10s %10s %10s %10s %10s%n",
+            "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (String endpoint : ENDPOINTS) {
+            Latencies merged = new Latencies();
+            for (Client worker : workers) {
+                merged.addAll(worker.latencies.get(endpoint));
+            }
+            long[] sorted = merged.sorted();
+            totalRequests += sorted.length;
+            System.out.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n", endpoint, sorted.length,
+                sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), percentile(sorted, 1.0));
+        }
+        for (Client worker : workers) {
+            errors += worker.errors;
+        }
+        System.out.printf("total %d requests, %.1f req/s, %d errors%n", totalRequests, totalRequests / seconds, errors);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static class Client implements Runnable {
+        private final HttpClient httpClient;
+        private final String host;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final boolean websocket;
+        private final Map<String, Latencies> latencies = new HashMap<>();
+        private long errors;
+
+        Client(HttpClient httpClient, String host, long measureFrom, long measureUntil, boolean websocket) {
+            this.httpClient = httpClient;
+            this.host = host;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+            this.websocket = websocket;
+            ENDPOINTS.forEach(endpoint -> latencies.put(endpoint, new Latencies()));
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < measureUntil) {
+                try {
+                    if (websocket) {
+                        playSession();
+                    } else {
+                        playGame();
+                    }
+                } catch (IOException e) {
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void playGame() throws IOException, InterruptedException {
+            String id = createAdventurer();
+            post("start-encounter", "/start-encounter/" + id);
+            if (post("heal", "/heal/" + id).contains("is dead!")) {
+                return;
+            }
+            for (int i = 0; i < MAX_ATTACKS && System.nanoTime() < measureUntil; i++) {
+                if (post("attack", "/attack/" + id).contains("is dead!")) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * The same game as {@link #playGame}, over one WebSocket session: opening it starts the encounter.
+         */
+        private void playSession() throws IOException, InterruptedException {
+            String id = createAdventurer();
+            Frames frames = new Frames();
+            long start = System.nanoTime();
+            WebSocket socket;
+            try {
+                socket = httpClient.newWebSocketBuilder()
+                    .buildAsync(URI.create("ws://" + host + "/sessions/" + id), frames)
+                    .join();
+            } catch (CompletionException e) {
+                throw new IOException("Failed to open a session", e.getCause());
+            }
+            try {
+                frames.next();
+                record("start-encounter", start, System.nanoTime());
+                if (send(socket, frames, "heal").contains("is dead!")) {
+                    return;
+                }
+                for (int i = 0; i < MAX_ATTACKS && System.nanoTime() < measureUntil; i++) {
+                    if (send(socket, frames, "attack").contains("is dead!")) {
+                        return;
+                    }
+                }
+            } finally {
+                socket.abort();
+            }
+        }
+
+        private String createAdventurer() throws IOException, InterruptedException {
+            String weapon = WEAPONS[ThreadLocalRandom.current().nextInt(WEAPONS.length)];
+            Matcher adventurer = ID.matcher(post("create", "/create/LoadTester/" + weapon));
+            if (!adventurer.find()) {
+                throw new IOException("No adventurer id in the response");
+            }
+            return adventurer.group(1);
+        }
+
+        private String post(String endpoint, String path) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + host + path))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+            long start = System.nanoTime();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long end = System.nanoTime();
+            if (response.statusCode() != 200) {
+                throw new IOException(endpoint + " returned " + response.statusCode());
+            }
+            record(endpoint, start, end);
+            return response.body();
+        }
+
+        private String send(WebSocket socket, Frames frames, String command) throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            socket.sendText(command, true).join();
+            String answer = frames.next();
+            record(command, start, System.nanoTime());
+            return answer;
+        }
+
+        private void record(String endpoint, long start, long end) {
+            if (start >= measureFrom && end <= measureUntil) {
+                latencies.get(endpoint).add(end - start);
+            }
+        }
+    }
+
+    /**
+     * Collects the text frames of a session, so the client can wait for the answer to each command.
+     */
+    private static class Frames implements WebSocket.Listener {
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                received.add(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        String next() throws IOException, InterruptedException {
+            String frame = received.poll(10, TimeUnit.SECONDS);
+            if (frame == null) {
+                throw new IOException("No answer from the session");
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * Growable array of latencies in nanoseconds, kept per client so that recording never contends.
+     */
+    private static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
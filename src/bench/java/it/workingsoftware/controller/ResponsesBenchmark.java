@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.javalin.json.JavalinJackson;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.Weapon;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes an adventurer and the events of a fight the way {@code ctx.json} does (a fresh {@link JavalinJackson},
+ * a {@code String}, then its bytes) and with the writers of {@link Responses}, straight to a stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponsesBenchmark {
+    private static final int EVENTS = 50;
+
+    private final JavalinJackson javalinJackson = new JavalinJackson();
+    private final OutputStream out = OutputStream.nullOutputStream();
+    private Adventurer adventurer;
+    private List<CombatEvent> events;
+
+    @Setup
+    public void setUp() {
+        adventurer = new Adventurer(UUID.randomUUID(), "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+        events = new ArrayList<>();
+        for (int i = 0; i < EVENTS / 2; i++) {
+            events.add(CombatEvent.hit("Gimli", 6));
+            events.add(CombatEvent.miss("Goblin"));
+        }
+    }
+
+    @Benchmark
+    public void adventurerAsString() throws IOException {
+        out.write(javalinJackson.toJsonString(adventurer, Adventurer.class).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void adventurerStreamed() throws IOException {
+        Responses.JSON_FORMAT.adventurer().writeValue(out, adventurer);
+    }
+
+    @Benchmark
+    public void eventsAsString() throws IOException {
+        out.write(javalinJackson.toJsonString(events, List.class).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void eventsStreamed() throws IOException {
+        try (SequenceWriter array = Responses.JSON_FORMAT.event().writeValuesAsArray(out)) {
+            for (CombatEvent event : events) {
+                array.write(event);
+            }
+        }
+    }
+}
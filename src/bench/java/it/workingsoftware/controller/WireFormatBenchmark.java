@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.Monster;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes an encounter and the events of a fight, in compact format, in every wire format {@link Responses} offers.
+ * The size of each payload is printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+    private static final int EVENTS = 50;
+    private static final Map<String, Responses.Format> FORMATS = Map.of("json", Responses.JSON_FORMAT,
+        "cbor", Responses.CBOR_FORMAT, "smile", Responses.SMILE_FORMAT);
+
+    @Param({"json", "cbor", "smile"})
+    private String wireFormat;
+
+    private final OutputStream out = OutputStream.nullOutputStream();
+    private Responses.Format format;
+    private Encounter encounter;
+    private List<CombatEvent> events;
+
+    @Setup
+    public void setUp() throws IOException {
+        format = FORMATS.get(wireFormat);
+        encounter = new Encounter(UUID.randomUUID(), UUID.randomUUID(), new Monster("Goblin", 10, 2, 2));
+        events = new ArrayList<>();
+        for (int i = 0; i < EVENTS / 2; i++) {
+            events.add(CombatEvent.hit("Gimli", 6));
+            events.add(CombatEvent.miss("Goblin"));
+        }
+
+        ByteArrayOutputStream eventsPayload = new ByteArrayOutputStream();
+        writeEvents(eventsPayload);
+        System.out.printf("%n%s: encounter %d bytes, %d events %d bytes%n", wireFormat,
+            format.encounter().writeValueAsBytes(encounter).length, EVENTS, eventsPayload.size());
+    }
+
+    @Benchmark
+    public void encounter() throws IOException {
+        format.encounter().writeValue(out, encounter);
+    }
+
+    @Benchmark
+    public void events() throws IOException {
+        writeEvents(out);
+    }
+
+    private void writeEvents(OutputStream target) throws IOException {
+        try (SequenceWriter array = format.event().writeValuesAsArray(target)) {
+            for (CombatEvent event : events) {
+                array.write(event);
+            }
+        }
+    }
+}
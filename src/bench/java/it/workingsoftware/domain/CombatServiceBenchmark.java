@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-turn hot path: one attack round and one heal round, with the real dice, damage and heal services.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatServiceBenchmark {
+    private final Adventurer gimli = new Adventurer(UUID.randomUUID(), "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+    private final Monster goblin = new Monster("Goblin", 10, 2, 2);
+
+    private CombatService combatService;
+    private long encounters;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        combatService = new CombatService(new DiceThrower(), new DamageCalculatorService(), new HealService());
+    }
+
+    @Benchmark
+    public AttackResult handleAttack() {
+        return combatService.handleAttack(gimli, goblin);
+    }
+
+    @Benchmark
+    public AttackResult heal() {
+        return combatService.heal(gimli, new Encounter(new UUID(0, encounters++), gimli.id(), goblin));
+    }
+}
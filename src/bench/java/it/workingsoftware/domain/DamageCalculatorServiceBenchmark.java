@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageCalculatorServiceBenchmark {
+    private final DamageCalculatorService damageCalculatorService = new DamageCalculatorService();
+    private final List<Weapon> axe = List.of(Weapon.AXE);
+    private final List<Weapon> daggers = List.of(Weapon.DAGGER, Weapon.DAGGER);
+    private int attack = 5;
+    private int defense = 2;
+
+    @Benchmark
+    public int axe() {
+        return damageCalculatorService.getDamage(attack, axe, defense);
+    }
+
+    @Benchmark
+    public int daggers() {
+        return damageCalculatorService.getDamage(attack, daggers, defense);
+    }
+}
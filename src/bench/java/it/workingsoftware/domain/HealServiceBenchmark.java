@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One heal per encounter, with a fresh {@link HealService} for every iteration: the time per heal should stay flat
+ * however many encounters the service has already seen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealServiceBenchmark {
+    private final Adventurer gimli = new Adventurer(UUID.randomUUID(), "Gimli", List.of(Weapon.AXE), 10, 5, 5, 0, 2);
+
+    private HealService healService;
+    private long encounters;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        healService = new HealService();
+    }
+
+    @Benchmark
+    public Adventurer heal() {
+        return healService.heal(gimli, new UUID(0, encounters++));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.config.DatabaseInitializer;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.Weapon;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adventurer inserts per second: one autocommitted {@code save} per row against one batched {@code saveAll}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1_000;
+
+    private Path dbPath;
+    private SqliteConnectionPool connectionPool;
+    private SqliteAdventurerRepository repository;
+
+    @Setup
+    public void setUp() throws Exception {
+        dbPath = Files.createTempFile("bulk-insert-bench", ".db");
+        String jdbcUrl = "jdbc:sqlite:" + dbPath;
+        DatabaseInitializer.init(jdbcUrl);
+        connectionPool = new SqliteConnectionPool(jdbcUrl, 1);
+        repository = new SqliteAdventurerRepository(connectionPool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveOneByOne() {
+        for (Adventurer adventurer : adventurers()) {
+            repository.save(adventurer);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveAll() {
+        repository.saveAll(adventurers());
+    }
+
+    private static List<Adventurer> adventurers() {
+        List<Adventurer> adventurers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            adventurers.add(new Adventurer(UUID.randomUUID(), "Orc " + i, List.of(Weapon.AXE), 20, 5, 5, 0, 2));
+        }
+        return adventurers;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connectionPool.close();
+        Files.deleteIfExists(dbPath);
+        Files.deleteIfExists(Path.of(dbPath + "-wal"));
+        Files.deleteIfExists(Path.of(dbPath + "-shm"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findByAdventurerId} lookups against one million encounters, comparing the original schema (TEXT ids, no
+ * index) with the indexed TEXT schema and the current indexed BLOB schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncounterLookupBenchmark {
+    private static final int ENCOUNTERS = 1_000_000;
+    private static final int LOOKUP_KEYS = 1_024;
+
+    @Param({"text-unindexed", "text-indexed", "blob-indexed"})
+    String schema;
+
+    private Path dbPath;
+    private Connection connection;
+    private PreparedStatement lookup;
+    private Object[] adventurerIds;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        dbPath = Files.createTempFile("encounters-bench", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        boolean blobIds = schema.startsWith("blob");
+        String idType = blobIds ? "BLOB" : "TEXT";
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE encounters (id " + idType + " PRIMARY KEY, adventurer_id " + idType + " NOT NULL, " +
+                "monster_name TEXT NOT NULL, monster_hp INTEGER NOT NULL, monster_attack INTEGER NOT NULL, " +
+                "monster_defense INTEGER NOT NULL)");
+        }
+        adventurerIds = new Object[LOOKUP_KEYS];
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO encounters VALUES (?, ?, 'Goblin', 10, 2, 2)")) {
+            for (int i = 0; i < ENCOUNTERS; i++) {
+                Object adventurerId = encode(UUID.randomUUID(), blobIds);
+                if (i % (ENCOUNTERS / LOOKUP_KEYS) == 0 && i / (ENCOUNTERS / LOOKUP_KEYS) < LOOKUP_KEYS) {
+                    adventurerIds[i / (ENCOUNTERS / LOOKUP_KEYS)] = adventurerId;
+                }
+                insert.setObject(1, encode(UUID.randomUUID(), blobIds));
+                insert.setObject(2, adventurerId);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        if (!schema.endsWith("unindexed")) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE INDEX idx_encounters_adventurer_id ON encounters (adventurer_id)");
+            }
+        }
+        System.out.printf("%n%s: %,d bytes on disk%n", schema, Files.size(dbPath));
+        lookup = connection.prepareStatement(
+            "SELECT id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense FROM encounters WHERE adventurer_id = ?");
+    }
+
+    private static Object encode(UUID id, boolean blobIds) {
+        return blobIds ? UuidCodec.toBytes(id) : id.toString();
+    }
+
+    @Benchmark
+    public boolean findByAdventurerId() throws Exception {
+        next = (next + 1) % LOOKUP_KEYS;
+        lookup.setObject(1, adventurerIds[next]);
+        try (ResultSet rs = lookup.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        lookup.close();
+        connection.close();
+        Files.deleteIfExists(dbPath);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.Weapon;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same calls as {@link SqliteAdventurerRepositoryBenchmark}, against the memory-mapped journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalAdventurerRepositoryBenchmark {
+    private static final int ADVENTURERS = 1_000;
+
+    private Path journalPath;
+    private JournalAdventurerRepository repository;
+    private UUID[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        journalPath = Files.createTempFile("adventurers-bench", ".journal");
+        repository = new JournalAdventurerRepository(journalPath);
+        ids = new UUID[ADVENTURERS];
+        for (int i = 0; i < ADVENTURERS; i++) {
+            ids[i] = UUID.randomUUID();
+            repository.save(new Adventurer(ids[i], "Gimli " + i, List.of(Weapon.AXE), 20, 5, 5, 0, 2));
+        }
+    }
+
+    @Benchmark
+    public Optional<Adventurer> findById() {
+        return repository.findById(nextId());
+    }
+
+    @Benchmark
+    public void update() {
+        repository.update(new Adventurer(nextId(), "Gimli", List.of(Weapon.AXE), 19, 5, 5, 0, 2));
+    }
+
+    private UUID nextId() {
+        next = (next + 1) % ADVENTURERS;
+        return ids[next];
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        repository.close();
+        Files.deleteIfExists(journalPath);
+    }
+}
@@ -7,40 +7,160 @@
 package it.workingsoftware;
 
 import io.javalin.Javalin;
+import io.javalin.json.JavalinJackson;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import it.workingsoftware.config.AppConfig;
 import it.workingsoftware.config.DatabaseInitializer;
 import it.workingsoftware.controller.CombatController;
+import it.workingsoftware.controller.CombatSessionController;
+import it.workingsoftware.controller.Responses;
+import it.workingsoftware.controller.MetricsController;
 import it.workingsoftware.domain.*;
+import it.workingsoftware.repository.CachingAdventurerRepository;
+import it.workingsoftware.repository.CachingEncounterRepository;
+import it.workingsoftware.repository.EventSourcedAdventurerRepository;
+import it.workingsoftware.repository.JournalAdventurerRepository;
+import it.workingsoftware.repository.JournalEncounterRepository;
+import it.workingsoftware.repository.MeteredAdventurerRepository;
+import it.workingsoftware.repository.MeteredCombatLogRepository;
+import it.workingsoftware.repository.MeteredEncounterRepository;
 import it.workingsoftware.repository.SqliteAdventurerRepository;
+import it.workingsoftware.repository.SqliteCombatLogRepository;
+import it.workingsoftware.repository.SqliteConnectionPool;
 import it.workingsoftware.repository.SqliteEncounterRepository;
+import it.workingsoftware.repository.WriteBehindFlusher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class App {
+    private static final Logger LOGGER = LoggerFactory.getLogger(App.class);
 
-    private static final String SQLITE_APP_DB = "jdbc:sqlite:app.db";
+    public static void main(String[] args) {
+        final Javalin app = start(AppConfig.fromSystemProperties());
+        Runtime.getRuntime().addShutdownHook(new Thread(app::stop));
+    }
+
+    /**
+     * Wires the application on top of the given configuration and starts serving. Stopping the returned server also
+     * flushes the cache, if any, and closes the database connections.
+     */
+    public static Javalin start(AppConfig config) {
+        DatabaseInitializer.init(config.jdbcUrl());
+        final SqliteConnectionPool connectionPool =
+            new SqliteConnectionPool(config.jdbcUrl(), config.readerConnections());
+        final PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        final List<Runnable> closeJournals = new ArrayList<>();
+        AdventurerRepository adventurerStore;
+        EncounterRepository encounterStore;
+        TransactionManager transactionManager = connectionPool;
+        if (config.journalDir() != null) {
+            Path journalDir = createDirectories(Path.of(config.journalDir()));
+            JournalAdventurerRepository adventurerJournal =
+                new JournalAdventurerRepository(journalDir.resolve("adventurers.journal"));
+            JournalEncounterRepository encounterJournal =
+                new JournalEncounterRepository(journalDir.resolve("encounters.journal"));
+            closeJournals.add(adventurerJournal::close);
+            closeJournals.add(encounterJournal::close);
+            adventurerStore = adventurerJournal;
+            encounterStore = encounterJournal;
+            // The journals are not transactional, there is nothing to hold the writer connection for
+            transactionManager = TransactionManager.NONE;
+        } else {
+            adventurerStore = config.eventSourcing()
+                ? new EventSourcedAdventurerRepository(connectionPool)
+                : new SqliteAdventurerRepository(connectionPool);
+            encounterStore = new SqliteEncounterRepository(connectionPool);
+        }
+        AdventurerRepository adventurerRepository = new MeteredAdventurerRepository(adventurerStore, meterRegistry);
+        EncounterRepository encounterRepository = new MeteredEncounterRepository(encounterStore, meterRegistry);
+        CombatLogRepository combatLogRepository =
+            new MeteredCombatLogRepository(new SqliteCombatLogRepository(connectionPool), meterRegistry);
+        WriteBehindFlusher flusher = null;
 
-    public static void main(String[] args) throws SQLException {
-        initDb();
-        final Connection connection = DriverManager.getConnection(SQLITE_APP_DB);
-        final AdventurerRepository adventurerRepository = new SqliteAdventurerRepository(connection);
-        final EncounterRepository encounterRepository = new SqliteEncounterRepository(connection);
+        if (config.cacheEnabled()) {
+            flusher = new WriteBehindFlusher(connectionPool, config.cacheFlushInterval(), meterRegistry);
+            adventurerRepository = new CachingAdventurerRepository(adventurerRepository, config.cacheMaxEntries(),
+                config.cacheTtl(), flusher);
+            encounterRepository = new CachingEncounterRepository(encounterRepository, config.cacheMaxEntries(),
+                config.cacheTtl(), flusher);
+            // Turns only touch memory, the flusher commits them to SQLite in batches
+            transactionManager = TransactionManager.NONE;
+            flusher.start();
+        }
 
         final DiceThrower diceThrower = new DiceThrower();
         final DamageCalculatorService damageCalculatorService = new DamageCalculatorService();
         final HealService healService = new HealService();
         final CombatService combatService = new CombatService(diceThrower, damageCalculatorService, healService);
-        final AdventurerService adventurerService = new AdventurerService(adventurerRepository, encounterRepository, combatService);
+        final AdventurerService adventurerService = new AdventurerService(adventurerRepository, encounterRepository, combatService,
+            transactionManager, meterRegistry, combatLogRepository);
 
-        final CombatController combatController = new CombatController(adventurerService);
+        final CombatController combatController = new CombatController(adventurerService, meterRegistry);
+        // One thread stores the turns of every WebSocket session, in the order they were played
+        final ExecutorService sessionWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "combat-session-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final CombatSessionController combatSessionController =
+            new CombatSessionController(adventurerService, sessionWriter);
+        final MetricsController metricsController = new MetricsController(meterRegistry);
 
-        Javalin app = Javalin.create().start(7000);
+        final WriteBehindFlusher cacheFlusher = flusher;
+        Javalin app = Javalin.create(javalinConfig -> {
+            // Does nothing on Java 17. On Java 21 waiting for a pooled connection parks the virtual thread, but the
+            // synchronized native calls of sqlite-jdbc pin its carrier thread for as long as each query runs
+            javalinConfig.useVirtualThreads = config.virtualThreads();
+            // Request bodies are read with the same mapper the responses are written with
+            javalinConfig.jsonMapper(new JavalinJackson(Responses.MAPPER, config.virtualThreads()));
+            javalinConfig.events(events -> events.serverStopped(() -> {
+                // The turns still queued go to the cache or the database before either closes
+                sessionWriter.shutdown();
+                awaitTermination(sessionWriter);
+                if (cacheFlusher != null) {
+                    cacheFlusher.close();
+                }
+                closeJournals.forEach(Runnable::run);
+                connectionPool.close();
+            }));
+        });
         combatController.registerRoutes(app);
+        combatSessionController.registerRoutes(app);
+        metricsController.registerRoutes(app);
+        return app.start(config.port());
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.warn("Combat session turns were still being stored after 30 seconds, closing anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Path createDirectories(Path dir) {
+        try {
+            return Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create " + dir, e);
+        }
     }
 
     public static void initDb() {
-        DatabaseInitializer.init(SQLITE_APP_DB);
+        DatabaseInitializer.init(AppConfig.fromSystemProperties().jdbcUrl());
     }
 
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.config;
+
+import java.time.Duration;
+
+/**
+ * Application settings, read from {@code -Dcombat.*} system properties. {@code journalDir} is {@code null} unless
+ * adventurers and encounters are kept in memory-mapped journals instead of SQLite.
+ */
+public record AppConfig(
+    String jdbcUrl,
+    int readerConnections,
+    boolean eventSourcing,
+    String journalDir,
+    boolean cacheEnabled,
+    int cacheMaxEntries,
+    Duration cacheTtl,
+    Duration cacheFlushInterval,
+    int port,
+    boolean virtualThreads
+) {
+
+    public static AppConfig fromSystemProperties() {
+        return new AppConfig(
+            System.getProperty("combat.db.url", "jdbc:sqlite:app.db"),
+            Integer.getInteger("combat.db.readers", Runtime.getRuntime().availableProcessors()),
+            Boolean.getBoolean("combat.db.eventSourcing"),
+            System.getProperty("combat.journal.dir"),
+            Boolean.getBoolean("combat.cache.enabled"),
+            Integer.getInteger("combat.cache.maxEntries", 10_000),
+            Duration.ofSeconds(Long.getLong("combat.cache.ttlSeconds", 300)),
+            Duration.ofMillis(Long.getLong("combat.cache.flushIntervalMillis", 200)),
+            Integer.getInteger("combat.http.port", 7000),
+            Boolean.getBoolean("combat.http.virtualThreads")
+        );
+    }
+}
@@ -6,16 +6,24 @@
 
 package it.workingsoftware.config;
 
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Brings the database schema up to date. The version of a database file is tracked in {@code PRAGMA user_version},
+ * so files created before the migrations existed (version 0) go through the whole history.
+ */
 public class DatabaseInitializer {
-    public static void init(String jdbcUrl) {
-        try (Connection conn = DriverManager.getConnection(jdbcUrl);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("""
+    static final List<Migration> MIGRATIONS = List.of(
+        Migration.sql(1, "Create adventurers and encounters",
+            """
                 CREATE TABLE IF NOT EXISTS adventurers (
                     id TEXT PRIMARY KEY,
                     name TEXT NOT NULL,
@@ -26,8 +34,8 @@ public class DatabaseInitializer {
                     money INTEGER NOT NULL,
                     number_of_potions INTEGER NOT NULL
                 );
-                """);
-            stmt.execute("""
+                """,
+            """
                 CREATE TABLE IF NOT EXISTS encounters (
                     id TEXT PRIMARY KEY,
                     adventurer_id TEXT NOT NULL,
@@ -36,9 +44,190 @@ public class DatabaseInitializer {
                     monster_attack INTEGER NOT NULL,
                     monster_defense INTEGER NOT NULL
                 );
-                """);
+                """),
+        Migration.sql(2, "Index encounters by adventurer",
+            "CREATE INDEX IF NOT EXISTS idx_encounters_adventurer_id ON encounters (adventurer_id)"),
+        Migration.sql(3, "Store UUIDs as 16-byte blobs",
+            """
+                CREATE TABLE adventurers_v3 (
+                    id BLOB PRIMARY KEY,
+                    name TEXT NOT NULL,
+                    weapon TEXT NOT NULL,
+                    hp INTEGER NOT NULL,
+                    attack INTEGER NOT NULL,
+                    defense INTEGER NOT NULL,
+                    money INTEGER NOT NULL,
+                    number_of_potions INTEGER NOT NULL
+                );
+                """,
+            """
+                INSERT INTO adventurers_v3 (id, name, weapon, hp, attack, defense, money, number_of_potions)
+                SELECT unhex(replace(id, '-', '')), name, weapon, hp, attack, defense, money, number_of_potions
+                FROM adventurers;
+                """,
+            "DROP TABLE adventurers",
+            "ALTER TABLE adventurers_v3 RENAME TO adventurers",
+            """
+                CREATE TABLE encounters_v3 (
+                    id BLOB PRIMARY KEY,
+                    adventurer_id BLOB NOT NULL,
+                    monster_name TEXT NOT NULL,
+                    monster_hp INTEGER NOT NULL,
+                    monster_attack INTEGER NOT NULL,
+                    monster_defense INTEGER NOT NULL
+                );
+                """,
+            """
+                INSERT INTO encounters_v3 (id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense)
+                SELECT unhex(replace(id, '-', '')), unhex(replace(adventurer_id, '-', '')),
+                       monster_name, monster_hp, monster_attack, monster_defense
+                FROM encounters;
+                """,
+            "DROP TABLE encounters",
+            "ALTER TABLE encounters_v3 RENAME TO encounters",
+            "CREATE INDEX idx_encounters_adventurer_id ON encounters (adventurer_id)"),
+        Migration.sql(4, "Add the combat replay log",
+            """
+                CREATE TABLE encounter_logs (
+                    encounter_id BLOB PRIMARY KEY,
+                    seed INTEGER NOT NULL,
+                    adventurer_id BLOB NOT NULL,
+                    name TEXT NOT NULL,
+                    weapon TEXT NOT NULL,
+                    hp INTEGER NOT NULL,
+                    attack INTEGER NOT NULL,
+                    defense INTEGER NOT NULL,
+                    money INTEGER NOT NULL,
+                    number_of_potions INTEGER NOT NULL,
+                    monster_name TEXT NOT NULL,
+                    monster_hp INTEGER NOT NULL,
+                    monster_attack INTEGER NOT NULL,
+                    monster_defense INTEGER NOT NULL
+                ) WITHOUT ROWID;
+                """,
+            """
+                CREATE TABLE encounter_actions (
+                    encounter_id BLOB NOT NULL,
+                    turn INTEGER NOT NULL,
+                    action INTEGER NOT NULL,
+                    PRIMARY KEY (encounter_id, turn)
+                ) WITHOUT ROWID;
+                """),
+        Migration.sql(5, "Add the event-sourced adventurer store",
+            """
+                CREATE TABLE adventurer_snapshots (
+                    adventurer_id BLOB NOT NULL,
+                    seq INTEGER NOT NULL,
+                    name TEXT NOT NULL,
+                    weapon TEXT NOT NULL,
+                    hp INTEGER NOT NULL,
+                    attack INTEGER NOT NULL,
+                    defense INTEGER NOT NULL,
+                    money INTEGER NOT NULL,
+                    number_of_potions INTEGER NOT NULL,
+                    PRIMARY KEY (adventurer_id, seq)
+                ) WITHOUT ROWID;
+                """,
+            """
+                CREATE TABLE adventurer_events (
+                    adventurer_id BLOB NOT NULL,
+                    seq INTEGER NOT NULL,
+                    type INTEGER NOT NULL,
+                    delta INTEGER NOT NULL,
+                    PRIMARY KEY (adventurer_id, seq)
+                ) WITHOUT ROWID;
+                """),
+        new Migration(6, "Pack weapons into an integer", DatabaseInitializer::packWeapons)
+    );
+
+    public static void init(String jdbcUrl) {
+        try (Connection conn = DriverManager.getConnection(jdbcUrl)) {
+            int currentVersion = schemaVersion(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() > currentVersion) {
+                    apply(conn, migration);
+                }
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to initialize database", e);
         }
     }
+
+    /**
+     * Replaces the comma-joined {@code weapon} column of every table that has one with a {@code weapons} integer
+     * ({@link it.workingsoftware.repository.WeaponCodec}). Loadouts repeat a lot, so each distinct one is converted
+     * once.
+     */
+    private static void packWeapons(Connection conn) throws SQLException {
+        for (String table : List.of("adventurers", "adventurer_snapshots", "encounter_logs")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN weapons INTEGER NOT NULL DEFAULT 0");
+            }
+            List<String> loadouts = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT DISTINCT weapon FROM " + table)) {
+                while (rs.next()) {
+                    loadouts.add(rs.getString(1));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE " + table + " SET weapons = ? WHERE weapon = ?")) {
+                for (String loadout : loadouts) {
+                    stmt.setInt(1, packWeaponNames(loadout));
+                    stmt.setString(2, loadout);
+                    stmt.executeUpdate();
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " DROP COLUMN weapon");
+            }
+        }
+    }
+
+    /**
+     * The packing of {@code WeaponCodec} as it was when this migration was written, with the weapon codes of then:
+     * the migration must convert old rows the same way whatever the codec and the enum become.
+     */
+    static int packWeaponNames(String names) {
+        List<String> codes = List.of("AXE", "CLUB", "DAGGER", "SWORD");
+        int[] counts = new int[codes.size()];
+        for (String name : names.split(",")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            int code = codes.indexOf(name);
+            if (code < 0) {
+                throw new IllegalArgumentException("Unknown weapon " + name);
+            }
+            if (++counts[code] > 0xFF) {
+                throw new IllegalArgumentException("At most 255 of the same weapon can be carried");
+            }
+        }
+        int packed = 0;
+        for (int code = 0; code < counts.length; code++) {
+            packed |= counts[code] << (8 * code);
+        }
+        return packed;
+    }
+
+    static int schemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            migration.step().apply(conn);
+            stmt.execute("PRAGMA user_version = " + migration.version());
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + migration.version() + " (" + migration.description() + ") failed", e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One step of the database schema history. Migrations are applied in {@code version} order and each version is
+ * applied exactly once per database file.
+ */
+record Migration(int version, String description, Step step) {
+
+    static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                for (String statement : statements) {
+                    stmt.execute(statement);
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+}
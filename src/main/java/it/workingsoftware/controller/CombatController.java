@@ -6,31 +6,82 @@
 
 package it.workingsoftware.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ConflictResponse;
 import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpResponseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import it.workingsoftware.domain.Adventurer;
 import it.workingsoftware.domain.AdventurerService;
+import it.workingsoftware.domain.CombatEvent;
 import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.NewAdventurer;
 import it.workingsoftware.domain.Weapon;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 public class CombatController {
+    static final int MAX_ROUNDS = 1_000;
+    static final int MAX_BULK_CREATE = 10_000;
+    static final String NDJSON = "application/x-ndjson";
+
     private final AdventurerService adventurerService;
+    private final MeterRegistry meterRegistry;
 
     public CombatController(AdventurerService adventurerService) {
+        this(adventurerService, Metrics.globalRegistry);
+    }
+
+    public CombatController(AdventurerService adventurerService, MeterRegistry meterRegistry) {
         this.adventurerService = adventurerService;
+        this.meterRegistry = meterRegistry;
     }
 
     public void createAdventurer(Context ctx) {
-        String name = ctx.pathParam("name");
+        String name = mapName(ctx.pathParam("name"));
         String weapon = ctx.pathParam("weapon");
 
         Adventurer adventurer = adventurerService.createAdventurer(name, mapWeapons(weapon));
 
-        ctx.json(adventurer);
+        Responses.write(ctx, Responses.Format::adventurer, adventurer);
+    }
+
+    public void createAdventurers(Context ctx) {
+        CreateAdventurerRequest[] requests = ctx.bodyAsClass(CreateAdventurerRequest[].class);
+        if (requests.length > MAX_BULK_CREATE) {
+            throw new BadRequestResponse("At most " + MAX_BULK_CREATE + " adventurers can be created at once");
+        }
+        List<NewAdventurer> newAdventurers = new ArrayList<>(requests.length);
+        for (CreateAdventurerRequest request : requests) {
+            if (request == null || request.name() == null || request.weapon() == null) {
+                throw new BadRequestResponse("Every adventurer needs a name and a weapon");
+            }
+            newAdventurers.add(new NewAdventurer(mapName(request.name()), mapWeapons(request.weapon())));
+        }
+
+        List<Adventurer> adventurers = adventurerService.createAdventurers(newAdventurers);
+
+        Responses.write(ctx, Responses.Format::adventurers, adventurers);
+    }
+
+    private static String mapName(String name) {
+        if (name.getBytes(StandardCharsets.UTF_8).length > Adventurer.MAX_NAME_BYTES) {
+            throw new BadRequestResponse("Names are limited to " + Adventurer.MAX_NAME_BYTES + " bytes of UTF-8");
+        }
+        return name;
     }
 
     private static List<Weapon> mapWeapons(String weapon) {
@@ -45,31 +96,172 @@ public class CombatController {
     public void startEncounter(Context ctx) {
         String adventurerId = ctx.pathParam("adventurerId");
 
-        Encounter encounter = adventurerService.startEncounter(UUID.fromString(adventurerId));
+        Encounter encounter = outsideOfSessions(() -> adventurerService.startEncounter(UUID.fromString(adventurerId)));
 
-        ctx.json(encounter);
+        Responses.write(ctx, Responses.Format::encounter, encounter);
     }
 
     public void attack(Context ctx) {
         String adventurerId = ctx.pathParam("adventurerId");
+        String rounds = ctx.queryParam("rounds");
+        boolean compact = isCompact(ctx);
 
-        List<String> actions = adventurerService.attack(UUID.fromString(adventurerId));
+        List<CombatEvent> events = outsideOfSessions(() -> rounds == null
+            ? adventurerService.attack(UUID.fromString(adventurerId))
+            : adventurerService.attack(UUID.fromString(adventurerId), mapRounds(rounds)));
+        writeEvents(ctx, compact, events);
+    }
+
+    /**
+     * Runs a turn of an adventurer who may be playing in a WebSocket session: the session holds the only up-to-date
+     * copy of them, so the request is refused with a 409 until it closes.
+     */
+    private static <T> T outsideOfSessions(Supplier<T> turn) {
+        try {
+            return turn.get();
+        } catch (AdventurerInSessionException e) {
+            throw new ConflictResponse("The adventurer is playing in a WebSocket session");
+        }
+    }
+
+    /**
+     * Reads {@code format} before the turn is played: a request the client will get a 400 for must change nothing.
+     */
+    private static boolean isCompact(Context ctx) {
+        String format = ctx.queryParam("format");
+        if (format == null || format.equalsIgnoreCase("verbose")) {
+            return false;
+        }
+        if (format.equalsIgnoreCase("compact")) {
+            return true;
+        }
+        throw new BadRequestResponse("format must be 'verbose' or 'compact'");
+    }
+
+    /**
+     * Renders the events as sentences, unless the client asked for {@code format=compact}: then they are sent as they
+     * are and no text is built at all. Either way each element is written as soon as it is ready.
+     */
+    private static void writeEvents(Context ctx, boolean compact, List<CombatEvent> events) {
+        if (compact) {
+            Responses.writeArray(ctx, Responses.Format::event, events.iterator());
+        } else {
+            Responses.writeArray(ctx, Responses.Format::sentence, events.stream().map(CombatEvent::render).iterator());
+        }
+    }
 
-        ctx.json(actions);
+    static int mapRounds(String rounds) {
+        if (rounds.equalsIgnoreCase("all")) {
+            return MAX_ROUNDS;
+        }
+        try {
+            int value = Integer.parseInt(rounds);
+            if (value >= 1 && value <= MAX_ROUNDS) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequestResponse("rounds must be 'all' or a number between 1 and " + MAX_ROUNDS);
     }
 
     public void heal(Context ctx) {
         String adventurerId = ctx.pathParam("adventurerId");
+        boolean compact = isCompact(ctx);
+
+        List<CombatEvent> events = outsideOfSessions(() -> adventurerService.heal(UUID.fromString(adventurerId)));
 
-        List<String> actions = adventurerService.heal(UUID.fromString(adventurerId));
+        writeEvents(ctx, compact, events);
+    }
+
+    /**
+     * Streams adventurers as newline-delimited JSON, one line per adventurer in id order, a page at a time as they are
+     * read from the repository: the whole list is never held in memory. Pass the id of the last line as {@code after} to
+     * continue from there; without {@code limit} every adventurer is exported.
+     */
+    public void listAdventurers(Context ctx) {
+        String after = ctx.queryParam("after");
+        String limit = ctx.queryParam("limit");
+        UUID afterId = after == null ? null : mapAfter(after);
+        int maxAdventurers = limit == null ? Integer.MAX_VALUE : mapLimit(limit);
 
-        ctx.json(actions);
+        ctx.contentType(NDJSON);
+        try (JsonGenerator lines = Responses.lines(ctx.outputStream())) {
+            adventurerService.listAdventurers(afterId, maxAdventurers,
+                adventurer -> Responses.writeLine(lines, Responses.ADVENTURER_LINE, adventurer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UUID mapAfter(String after) {
+        try {
+            return UUID.fromString(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse("after must be the id of an adventurer");
+        }
+    }
+
+    private static int mapLimit(String limit) {
+        try {
+            int value = Integer.parseInt(limit);
+            if (value >= 1) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequestResponse("limit must be a positive number");
+    }
+
+    /**
+     * Plays the combat log of an encounter again and returns the same actions the adventurer saw while fighting.
+     */
+    public void replay(Context ctx) {
+        String encounterId = ctx.pathParam("encounterId");
+        boolean compact = isCompact(ctx);
+
+        List<CombatEvent> events = adventurerService.replay(UUID.fromString(encounterId));
+
+        writeEvents(ctx, compact, events);
     }
 
     public void registerRoutes(Javalin app) {
-        app.post("/create/{name}/{weapon}", this::createAdventurer);
-        app.post("/start-encounter/{adventurerId}", this::startEncounter);
-        app.post("/attack/{adventurerId}", this::attack);
-        app.post("/heal/{adventurerId}", this::heal);
+        app.post("/create", timed("/create", this::createAdventurers));
+        app.post("/create/{name}/{weapon}", timed("/create/{name}/{weapon}", this::createAdventurer));
+        app.post("/start-encounter/{adventurerId}", timed("/start-encounter/{adventurerId}", this::startEncounter));
+        app.post("/attack/{adventurerId}", timed("/attack/{adventurerId}", this::attack));
+        app.post("/heal/{adventurerId}", timed("/heal/{adventurerId}", this::heal));
+        app.get("/adventurers", timed("GET", "/adventurers", this::listAdventurers));
+        app.get("/encounters/{encounterId}/replay", timed("GET", "/encounters/{encounterId}/replay", this::replay));
+    }
+
+    /**
+     * Times every request to {@code route} as {@code combat.http}, tagged with the response status. Handlers that throw
+     * are tagged with the status Javalin will answer with: the one of an {@link HttpResponseException}, 500 otherwise.
+     */
+    Handler timed(String route, Handler handler) {
+        return timed("POST", route, handler);
+    }
+
+    Handler timed(String method, String route, Handler handler) {
+        return ctx -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            int status = 500;
+            try {
+                handler.handle(ctx);
+                status = ctx.status().getCode();
+            } catch (HttpResponseException e) {
+                status = e.getStatus();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("combat.http")
+                    .description("Time spent handling HTTP requests")
+                    .tags("method", method, "route", route, "status", String.valueOf(status))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            }
+        };
+    }
+
+    public record CreateAdventurerRequest(String name, String weapon) {
     }
 }
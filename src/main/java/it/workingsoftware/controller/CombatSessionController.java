@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.websocket.WsCloseStatus;
+import io.javalin.websocket.WsContext;
+import io.javalin.websocket.WsMessageContext;
+import it.workingsoftware.domain.AdventurerService;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.CombatSession;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
+import it.workingsoftware.domain.exception.IllegalPotionUsageException;
+import it.workingsoftware.domain.exception.NoPotionsException;
+import it.workingsoftware.domain.exception.PotionLimitUsageReachedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Plays a whole encounter over one WebSocket: the adventurer and the encounter stay in the {@link CombatSession} of
+ * the connection, so a turn costs a frame each way instead of a request that loads and stores them.
+ * <p>
+ * The server sends the encounter when the connection opens, then answers every text frame ({@code attack},
+ * {@code attack <rounds>}, {@code attack all} or {@code heal}) with the actions of the turn, as the HTTP routes do,
+ * or with {@code {"error": "..."}}. It closes the connection once someone dies, or once a turn could not be stored.
+ * <p>
+ * Clients only ever get the fixed messages of this class: any other failure is logged, never sent, since its message
+ * can carry SQL or internals, and a close reason must fit in 123 bytes.
+ */
+public class CombatSessionController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CombatSessionController.class);
+
+    static final String COMMANDS = "Commands are 'attack', 'attack <rounds>', 'attack all' and 'heal'";
+
+    private final AdventurerService adventurerService;
+    private final Executor writer;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public CombatSessionController(AdventurerService adventurerService, Executor writer) {
+        this.adventurerService = adventurerService;
+        this.writer = writer;
+    }
+
+    public void registerRoutes(Javalin app) {
+        app.ws("/sessions/{adventurerId}", ws -> {
+            ws.onConnect(this::open);
+            ws.onMessage(this::play);
+            ws.onClose(ctx -> close(ctx.sessionId()));
+        });
+    }
+
+    void open(WsContext ctx) {
+        String format = ctx.queryParam("format");
+        boolean compact = format != null && format.equalsIgnoreCase("compact");
+        if (format != null && !compact && !format.equalsIgnoreCase("verbose")) {
+            ctx.closeSession(WsCloseStatus.POLICY_VIOLATION, "format must be 'verbose' or 'compact'");
+            return;
+        }
+        UUID adventurerId;
+        try {
+            adventurerId = UUID.fromString(ctx.pathParam("adventurerId"));
+        } catch (IllegalArgumentException e) {
+            ctx.closeSession(WsCloseStatus.POLICY_VIOLATION, "adventurerId must be the id of an adventurer");
+            return;
+        }
+        CombatSession session;
+        try {
+            session = adventurerService.openSession(adventurerId, writer);
+        } catch (AdventurerInSessionException e) {
+            ctx.closeSession(WsCloseStatus.POLICY_VIOLATION, "The adventurer is already playing in another session");
+            return;
+        } catch (IllegalArgumentException e) {
+            ctx.closeSession(WsCloseStatus.POLICY_VIOLATION, "Adventurer not found");
+            return;
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to open a session for adventurer {}", adventurerId, e);
+            ctx.closeSession(WsCloseStatus.SERVER_ERROR, "The session could not be opened");
+            return;
+        }
+        sessions.put(ctx.sessionId(), new Session(session, compact));
+        ctx.send(session.encounter());
+    }
+
+    void close(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            session.combat().close();
+        }
+    }
+
+    void play(WsMessageContext ctx) {
+        Session session = sessions.get(ctx.sessionId());
+        if (session == null) {
+            return;
+        }
+        if (session.combat().hasFailed()) {
+            close(ctx.sessionId());
+            ctx.closeSession(WsCloseStatus.SERVER_ERROR, "A turn could not be stored");
+            return;
+        }
+        String[] command = ctx.message().trim().toLowerCase().split("\\s+");
+        boolean attack = command[0].equals("attack") && command.length <= 2;
+        if (!attack && !(command[0].equals("heal") && command.length == 1)) {
+            ctx.send(Map.of("error", COMMANDS));
+            return;
+        }
+        List<CombatEvent> events;
+        try {
+            events = attack
+                ? session.combat().attack(command.length == 1 ? 1 : CombatController.mapRounds(command[1]))
+                : session.combat().heal();
+        } catch (RuntimeException e) {
+            ctx.send(Map.of("error", describe(e, ctx.sessionId())));
+            return;
+        }
+
+        ctx.send(session.compact() ? events : events.stream().map(CombatEvent::render).toList());
+        if (session.combat().isOver()) {
+            close(ctx.sessionId());
+            ctx.closeSession(WsCloseStatus.NORMAL_CLOSURE, "The encounter is over");
+        }
+    }
+
+    private static String describe(RuntimeException e, String sessionId) {
+        if (e instanceof BadRequestResponse) {
+            // Thrown by mapRounds, with a message of its own
+            return e.getMessage();
+        }
+        if (e instanceof NoPotionsException) {
+            return "No potions left";
+        }
+        if (e instanceof PotionLimitUsageReachedException || e instanceof IllegalPotionUsageException) {
+            return "Only one potion can be drunk per encounter";
+        }
+        LOGGER.error("Failed to play a turn of session {}", sessionId, e);
+        return "The turn could not be played";
+    }
+
+    private record Session(CombatSession combat, boolean compact) {
+    }
+}
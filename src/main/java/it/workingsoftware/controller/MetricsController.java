@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Exposes the application metrics in the Prometheus text format.
+ */
+public class MetricsController {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrometheusMeterRegistry registry;
+
+    public MetricsController(PrometheusMeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void metrics(Context ctx) {
+        ctx.contentType(CONTENT_TYPE);
+        ctx.result(registry.scrape());
+    }
+
+    public void registerRoutes(Javalin app) {
+        app.get("/metrics", this::metrics);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.json.JavalinJackson;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.Encounter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The {@link ObjectMapper}s of the application, one per wire format, and writers prepared once for every response
+ * type.
+ * <p>
+ * Blackbird replaces the reflective getters with generated lambdas, and the writers resolve their serializers when
+ * the class loads instead of on the first request. Responses are written straight to the output stream: no
+ * intermediate {@code String} or byte array is built, and lists of actions are written element by element.
+ * <p>
+ * Clients that send {@code Accept: application/cbor} or {@code Accept: application/x-jackson-smile} get the same
+ * payloads in that binary encoding; everyone else gets JSON.
+ */
+public final class Responses {
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    public static final ObjectMapper MAPPER = configure(JavalinJackson.defaultMapper());
+
+    static final Format JSON_FORMAT = Format.of(ContentType.JSON, MAPPER);
+    static final Format CBOR_FORMAT = Format.of(CBOR, configure(new CBORMapper()));
+    static final Format SMILE_FORMAT = Format.of(SMILE, configure(new SmileMapper()));
+
+    // One line of a newline-delimited body: the generator flushes when its buffer is full, not after every line
+    static final ObjectWriter ADVENTURER_LINE = JSON_FORMAT.adventurer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private Responses() {
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.registerModule(new BlackbirdModule())
+            // The servlet container finishes the response, Jackson must not close its stream
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * @return the first format of the {@code Accept} header that can be written, or JSON if none can
+     */
+    static Format negotiate(Context ctx) {
+        String accept = ctx.header(Header.ACCEPT);
+        if (accept != null) {
+            for (String range : accept.split(",")) {
+                int parameters = range.indexOf(';');
+                String mediaType = (parameters < 0 ? range : range.substring(0, parameters)).trim();
+                if (mediaType.equalsIgnoreCase(CBOR)) {
+                    return CBOR_FORMAT;
+                }
+                if (mediaType.equalsIgnoreCase(SMILE)) {
+                    return SMILE_FORMAT;
+                }
+                if (mediaType.equalsIgnoreCase(ContentType.JSON)) {
+                    return JSON_FORMAT;
+                }
+            }
+        }
+        return JSON_FORMAT;
+    }
+
+    static void write(Context ctx, Function<Format, ObjectWriter> writer, Object value) {
+        Format format = start(ctx);
+        try {
+            writer.apply(format).writeValue(ctx.outputStream(), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes an array, serializing each element only when its turn comes.
+     */
+    static void writeArray(Context ctx, Function<Format, ObjectWriter> elementWriter, Iterator<?> elements) {
+        Format format = start(ctx);
+        try (SequenceWriter array = elementWriter.apply(format).writeValuesAsArray(ctx.outputStream())) {
+            while (elements.hasNext()) {
+                array.write(elements.next());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Format start(Context ctx) {
+        Format format = negotiate(ctx);
+        ctx.contentType(format.contentType());
+        // Caches must not serve one format to a client that asked for another
+        ctx.header(Header.VARY, Header.ACCEPT);
+        return format;
+    }
+
+    /**
+     * Starts a newline-delimited JSON body: pass it to {@link #writeLine} for every document, then close it.
+     */
+    static JsonGenerator lines(OutputStream out) throws IOException {
+        JsonGenerator lines = MAPPER.createGenerator(out);
+        // The newline is the separator: Jackson would put a space before every document after the first
+        lines.setRootValueSeparator(null);
+        return lines;
+    }
+
+    static void writeLine(JsonGenerator lines, ObjectWriter writer, Object value) {
+        try {
+            writer.writeValue(lines, value);
+            lines.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A wire format and its writers.
+     */
+    record Format(String contentType, ObjectWriter adventurer, ObjectWriter adventurers, ObjectWriter encounter,
+                  ObjectWriter event, ObjectWriter sentence) {
+
+        static Format of(String contentType, ObjectMapper mapper) {
+            return new Format(contentType, mapper.writerFor(Adventurer.class),
+                mapper.writerFor(new TypeReference<List<Adventurer>>() {
+                }), mapper.writerFor(Encounter.class), mapper.writerFor(CombatEvent.class),
+                mapper.writerFor(String.class));
+        }
+    }
+}
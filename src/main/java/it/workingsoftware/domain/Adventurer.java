@@ -19,4 +19,15 @@ public record Adventurer(
         int money,
         int numberOfPotions
 ) {
+    /**
+     * The longest name, in bytes of UTF-8, every repository can store: the journal keeps it in a fixed-size field.
+     */
+    public static final int MAX_NAME_BYTES = 62;
+
+    /**
+     * A new adventurer, with the starting stats every player gets.
+     */
+    public static Adventurer recruit(UUID id, String name, List<Weapon> weapons) {
+        return new Adventurer(id, name, weapons, 20, 5, 5, 0, 2);
+    }
 }
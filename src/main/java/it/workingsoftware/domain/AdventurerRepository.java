@@ -6,16 +6,37 @@
 
 package it.workingsoftware.domain;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface AdventurerRepository {
     void save(Adventurer adventurer);
 
+    void saveAll(List<Adventurer> adventurers);
+
     Optional<Adventurer> findById(UUID id);
 
     void update(Adventurer adventurer);
 
     void delete(UUID id);
+
+    /**
+     * Passes up to {@code limit} adventurers to {@code consumer} in id order, starting right after {@code after}, or
+     * from the first one when it is {@code null}. Ids are ordered as unsigned 128-bit numbers. Adventurers are read
+     * as they are consumed, never all at once.
+     */
+    void scan(UUID after, int limit, Consumer<Adventurer> consumer);
+
+    /**
+     * One page of {@link #scan}: pass the id of the last adventurer as {@code after} to get the next one.
+     */
+    default List<Adventurer> findPage(UUID after, int limit) {
+        List<Adventurer> page = new ArrayList<>(Math.min(limit, 1_000));
+        scan(after, limit, page::add);
+        return page;
+    }
 }
 
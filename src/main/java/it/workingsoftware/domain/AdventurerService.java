@@ -6,93 +6,328 @@
 
 package it.workingsoftware.domain;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
 import it.workingsoftware.domain.exception.IllegalPotionUsageException;
 import it.workingsoftware.domain.exception.NoPotionsException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class AdventurerService {
+    static final int LIST_PAGE_SIZE = 500;
+
     private final AdventurerRepository adventurerRepository;
     private final EncounterRepository encounterRepository;
     private final CombatService combatService;
+    private final TransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final CombatLogRepository combatLogRepository;
+    private final CombatReplayer combatReplayer = new CombatReplayer();
+    private final MonsterSpawner monsterSpawner = new MonsterSpawner();
+    // Turns of the same adventurer run one at a time, so none of them works on a stale copy
+    private final StripedLock adventurerLocks = new StripedLock(StripedLock.DEFAULT_STRIPES);
+    // Adventurers with an open CombatSession: only the session plays their turns, on its in-memory copy
+    private final Set<UUID> playingAdventurers = ConcurrentHashMap.newKeySet();
+
+    public AdventurerService(AdventurerRepository adventurerRepository, EncounterRepository encounterRepository,
+                             CombatService combatService, TransactionManager transactionManager) {
+        this(adventurerRepository, encounterRepository, combatService, transactionManager, Metrics.globalRegistry);
+    }
 
     public AdventurerService(AdventurerRepository adventurerRepository, EncounterRepository encounterRepository,
-                             CombatService combatService) {
+                             CombatService combatService, TransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this(adventurerRepository, encounterRepository, combatService, transactionManager, meterRegistry,
+            CombatLogRepository.NONE);
+    }
+
+    public AdventurerService(AdventurerRepository adventurerRepository, EncounterRepository encounterRepository,
+                             CombatService combatService, TransactionManager transactionManager,
+                             MeterRegistry meterRegistry, CombatLogRepository combatLogRepository) {
         this.adventurerRepository = adventurerRepository;
         this.encounterRepository = encounterRepository;
         this.combatService = combatService;
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
+        this.combatLogRepository = combatLogRepository;
     }
 
     public Adventurer createAdventurer(String name, List<Weapon> weapons) {
-        Adventurer adventurer = new Adventurer(
-            UUID.randomUUID(),
-            name,
-            weapons,
-            20,
-            5,
-            5,
-            0,
-            2
-        );
+        return timed("createAdventurer", () -> {
+            Adventurer adventurer = newAdventurer(name, weapons);
+
+            adventurerRepository.save(adventurer);
+
+            return adventurer;
+        });
+    }
+
+    public List<Adventurer> createAdventurers(List<NewAdventurer> newAdventurers) {
+        return timed("createAdventurers", () -> doCreateAdventurers(newAdventurers));
+    }
+
+    private List<Adventurer> doCreateAdventurers(List<NewAdventurer> newAdventurers) {
+        List<Adventurer> adventurers = newAdventurers.stream()
+            .map(newAdventurer -> newAdventurer(newAdventurer.name(), newAdventurer.weapons()))
+            .toList();
+
+        adventurerRepository.saveAll(adventurers);
 
-        adventurerRepository.save(adventurer);
+        return adventurers;
+    }
 
-        return adventurer;
+    private static Adventurer newAdventurer(String name, List<Weapon> weapons) {
+        return Adventurer.recruit(UUID.randomUUID(), name, weapons);
     }
 
     public Encounter startEncounter(UUID adventurerId) {
-        Encounter encounter = adventurerRepository.findById(adventurerId)
-            .map(adventurer -> new Encounter(
-                UUID.randomUUID(),
-                adventurer.id(),
-                spawnMonster()
-            ))
+        return timed("startEncounter", () -> adventurerLocks.withLock(adventurerId,
+            () -> transactionManager.inTransaction(() -> doStartEncounter(adventurerId))));
+    }
+
+    private Encounter doStartEncounter(UUID adventurerId) {
+        requireNoSession(adventurerId);
+        Adventurer adventurer = adventurerRepository.findById(adventurerId)
             .orElseThrow(() -> new IllegalArgumentException("Adventurer not found"));
+        return begin(adventurer);
+    }
+
+    private Encounter begin(Adventurer adventurer) {
+        Encounter encounter = new Encounter(
+            UUID.randomUUID(),
+            adventurer.id(),
+            monsterSpawner.spawn()
+        );
 
         encounterRepository.save(encounter);
+        combatLogRepository.start(new CombatLog(encounter.id(), ThreadLocalRandom.current().nextLong(), adventurer,
+            encounter.monster(), List.of()));
 
         return encounter;
     }
 
-    public List<String> attack(UUID id) {
+    public List<CombatEvent> attack(UUID id) {
+        return attack(id, 1);
+    }
+
+    /**
+     * Resolves up to {@code rounds} combat rounds in memory, stopping early as soon as the adventurer or the monster
+     * dies, and stores only the final state.
+     */
+    public List<CombatEvent> attack(UUID id, int rounds) {
+        if (rounds < 1) {
+            throw new IllegalArgumentException("Rounds must be at least 1");
+        }
+        return timed("attack", () -> adventurerLocks.withLock(id,
+            () -> transactionManager.inTransaction(() -> doAttack(id, rounds))));
+    }
+
+    private List<CombatEvent> doAttack(UUID id, int rounds) {
+        requireNoSession(id);
         Adventurer adventurer = adventurerRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Adventurer not found"));
         Encounter encounter = encounterRepository.findByAdventurerId(adventurer.id())
             .orElseThrow(() -> new IllegalArgumentException("Encounter not found"));
+
+        Turn turn = playAttack(adventurer, encounter, combatLogRepository.position(encounter.id()), rounds);
+        storeAttack(turn);
+        return turn.events();
+    }
+
+    Turn playAttack(Adventurer adventurer, Encounter encounter, Optional<CombatLog.Position> position, int rounds) {
+        List<CombatEvent> events = new ArrayList<>();
+        Adventurer updatedAdventurer = adventurer;
         Monster monster = encounter.monster();
-        AttackResult attackResult = combatService.handleAttack(adventurer, monster);
+        int roundsPlayed = 0;
+        while (roundsPlayed < rounds) {
+            AttackResult attackResult = position.isPresent()
+                ? combatService.handleAttack(updatedAdventurer, monster, position.get().diceFor(roundsPlayed))
+                : combatService.handleAttack(updatedAdventurer, monster);
+            roundsPlayed++;
+            events.addAll(attackResult.events());
+            updatedAdventurer = attackResult.updatedAdventurer();
+            monster = attackResult.updatedMonster();
+            if (updatedAdventurer.hp() <= 0 || monster.hp() <= 0) {
+                break;
+            }
+        }
+        int played = roundsPlayed;
+        return new Turn(updatedAdventurer, new Encounter(encounter.id(), encounter.adventurerId(), monster), events,
+            position.map(at -> CombatLog.Action.attack(at.nextTurn(), played)));
+    }
 
-        if (attackResult.updatedAdventurer().hp() <= 0) {
-            adventurerRepository.delete(adventurer.id());
-            encounterRepository.delete(encounter.id());
-        } else {
-            adventurerRepository.update(attackResult.updatedAdventurer());
+    void storeAttack(Turn turn) {
+        UUID encounterId = turn.encounter().id();
+        turn.action().ifPresent(action -> combatLogRepository.append(encounterId, action));
+
+        if (turn.adventurer().hp() <= 0) {
+            adventurerRepository.delete(turn.adventurer().id());
+            encounterRepository.delete(encounterId);
+            combatService.endEncounter(encounterId);
+            return;
         }
-        if (encounter.monster().hp() <= 0) {
-            encounterRepository.delete(encounter.id());
+        adventurerRepository.update(turn.adventurer());
+        if (turn.encounter().monster().hp() <= 0) {
+            encounterRepository.delete(encounterId);
+            combatService.endEncounter(encounterId);
         } else {
-            encounterRepository.update(new Encounter(encounter.id(), encounter.adventurerId(), attackResult.updatedMonster()));
+            encounterRepository.update(turn.encounter());
         }
-        return attackResult.actions();
     }
 
-    public List<String> heal(UUID adventurerId) {
+    public List<CombatEvent> heal(UUID adventurerId) {
+        return timed("heal", () -> adventurerLocks.withLock(adventurerId,
+            () -> transactionManager.inTransaction(() -> doHeal(adventurerId))));
+    }
+
+    private List<CombatEvent> doHeal(UUID adventurerId) {
+        requireNoSession(adventurerId);
         Adventurer adventurer = adventurerRepository.findById(adventurerId)
             .orElseThrow(() -> new IllegalArgumentException("Adventurer not found"));
         Encounter encounter = encounterRepository.findByAdventurerId(adventurer.id())
             .orElseThrow(() -> new IllegalArgumentException("Encounter not found"));
 
         try {
-            AttackResult attackResult = combatService.heal(adventurer, encounter);
-            adventurerRepository.update(attackResult.updatedAdventurer());
-            return attackResult.actions();
+            Turn turn = playHeal(adventurer, encounter, combatLogRepository.position(encounter.id()));
+            storeHeal(turn);
+            return turn.events();
         } catch (NoPotionsException | IllegalPotionUsageException e) {
             throw e;
         }
     }
 
-    private Monster spawnMonster() {
-        return Math.random() < 0.66 ? new Monster("Goblin", 10, 2, 2) : new Monster("Azog il Goblin", 100, 10, 5);
+    Turn playHeal(Adventurer adventurer, Encounter encounter, Optional<CombatLog.Position> position) {
+        AttackResult attackResult = position.isPresent()
+            ? combatService.heal(adventurer, encounter, position.get().diceFor(0))
+            : combatService.heal(adventurer, encounter);
+        return new Turn(attackResult.updatedAdventurer(), encounter, attackResult.events(),
+            position.map(at -> CombatLog.Action.heal(at.nextTurn())));
+    }
+
+    void storeHeal(Turn turn) {
+        turn.action().ifPresent(action -> combatLogRepository.append(turn.encounter().id(), action));
+        adventurerRepository.update(turn.adventurer());
+    }
+
+    /**
+     * Loads the adventurer and their running encounter, starting one if there is none, into a session that plays the
+     * following turns in memory and stores them through {@code writer}.
+     * <p>
+     * Until the session is {@linkplain CombatSession#close closed} and its turns are stored, the adventurer cannot
+     * open another one nor play here: both would work on a copy the session is about to overwrite.
+     *
+     * @throws AdventurerInSessionException if the adventurer is already playing in a session
+     */
+    public CombatSession openSession(UUID adventurerId, Executor writer) {
+        return timed("openSession", () -> adventurerLocks.withLock(adventurerId, () -> {
+            if (!playingAdventurers.add(adventurerId)) {
+                throw new AdventurerInSessionException();
+            }
+            try {
+                return transactionManager.inTransaction(() -> {
+                    Adventurer adventurer = adventurerRepository.findById(adventurerId)
+                        .orElseThrow(() -> new IllegalArgumentException("Adventurer not found"));
+                    Encounter encounter = encounterRepository.findByAdventurerId(adventurerId)
+                        .orElseGet(() -> begin(adventurer));
+                    return new CombatSession(this, writer, adventurer, encounter,
+                        combatLogRepository.position(encounter.id()));
+                });
+            } catch (RuntimeException e) {
+                playingAdventurers.remove(adventurerId);
+                throw e;
+            }
+        }));
+    }
+
+    void endSession(UUID adventurerId) {
+        playingAdventurers.remove(adventurerId);
+    }
+
+    private void requireNoSession(UUID adventurerId) {
+        if (playingAdventurers.contains(adventurerId)) {
+            throw new AdventurerInSessionException();
+        }
+    }
+
+    /**
+     * Stores a turn played by a {@link CombatSession}, with the same lock and transaction as a turn played here.
+     */
+    void store(Turn turn, Consumer<Turn> store) {
+        adventurerLocks.withLock(turn.adventurer().id(), () -> transactionManager.inTransaction(() -> {
+            store.accept(turn);
+            return null;
+        }));
+    }
+
+    /**
+     * Passes up to {@code limit} adventurers, in id order, starting right after {@code after}, to {@code consumer}.
+     * They are read {@value #LIST_PAGE_SIZE} at a time and a page is only passed on once it is read, so a slow
+     * consumer never holds a database connection, or the snapshot that comes with it, between pages. Every page read
+     * is timed on its own, leaving out the time the consumer takes.
+     */
+    public void listAdventurers(UUID after, int limit, Consumer<Adventurer> consumer) {
+        UUID cursor = after;
+        int left = limit;
+        while (left > 0) {
+            UUID pageAfter = cursor;
+            int pageSize = Math.min(left, LIST_PAGE_SIZE);
+            List<Adventurer> page = timed("listAdventurers", () -> adventurerRepository.findPage(pageAfter, pageSize));
+            page.forEach(consumer);
+            if (page.size() < pageSize) {
+                break;
+            }
+            left -= pageSize;
+            cursor = page.get(pageSize - 1).id();
+        }
+    }
+
+    /**
+     * Plays a logged encounter again, finished or not, and returns what happened in it.
+     */
+    public List<CombatEvent> replay(UUID encounterId) {
+        return timed("replay", () -> combatLogRepository.findByEncounterId(encounterId)
+            .map(combatReplayer::replay)
+            .orElseThrow(() -> new IllegalArgumentException("Combat log not found")));
+    }
+
+    /**
+     * Times {@code operation} as {@code combat.service}, tagged with the exception it threw, if any.
+     */
+    <T> T timed(String operation, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("combat.service")
+                .description("Time spent in AdventurerService operations")
+                .tags("operation", operation, "exception", exception)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * What an attack or a heal did to the adventurer and the monster, before any of it is stored.
+     */
+    record Turn(Adventurer adventurer, Encounter encounter, List<CombatEvent> events,
+                Optional<CombatLog.Action> action) {
+
+        boolean endsTheEncounter() {
+            return adventurer.hp() <= 0 || encounter.monster().hp() <= 0;
+        }
     }
 }
@@ -9,8 +9,15 @@ package it.workingsoftware.domain;
 import java.util.List;
 
 public record AttackResult(
-    List<String> actions,
+    List<CombatEvent> events,
     Adventurer updatedAdventurer,
     Monster updatedMonster
 ) {
+
+    /**
+     * The events rendered as text, built on demand.
+     */
+    public List<String> actions() {
+        return events.stream().map(CombatEvent::render).toList();
+    }
 }
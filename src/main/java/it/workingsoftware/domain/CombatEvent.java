@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+/**
+ * Something that happened during a turn: {@code actor} hit for {@code amount} damage, missed, healed {@code amount}
+ * hp or died. {@link #render()} turns it into the sentence shown to the players.
+ */
+public record CombatEvent(Type type, String actor, int amount) {
+
+    public enum Type {
+        HIT,
+        MISS,
+        HEAL,
+        DEATH
+    }
+
+    public static CombatEvent hit(String actor, int damage) {
+        return new CombatEvent(Type.HIT, actor, damage);
+    }
+
+    public static CombatEvent miss(String actor) {
+        return new CombatEvent(Type.MISS, actor, 0);
+    }
+
+    public static CombatEvent heal(String actor, int hp) {
+        return new CombatEvent(Type.HEAL, actor, hp);
+    }
+
+    public static CombatEvent death(String actor) {
+        return new CombatEvent(Type.DEATH, actor, 0);
+    }
+
+    public String render() {
+        return switch (type) {
+            case HIT -> actor + " attacks... And hit for " + amount + " damage!";
+            case MISS -> actor + " attacks... But misses!";
+            case HEAL -> actor + " heals for " + amount + " hp!";
+            case DEATH -> actor + " is dead!";
+        };
+    }
+}
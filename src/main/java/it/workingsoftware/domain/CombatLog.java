@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything needed to replay an encounter: the seed its dice are derived from, both sides as they were when it
+ * started and the actions the player took, in order. The text of the fight is never stored, {@link CombatReplayer}
+ * rebuilds it.
+ */
+public record CombatLog(
+    UUID encounterId,
+    long seed,
+    Adventurer adventurer,
+    Monster monster,
+    List<Action> actions
+) {
+
+    /**
+     * The dice of one turn: each turn gets its own generator, derived from the seed of the encounter and the turn
+     * number alone, so a turn rolls the same whichever thread plays or replays it.
+     */
+    public static DiceThrower diceFor(long seed, int turn) {
+        return DiceThrower.seeded(turnSeed(seed, turn));
+    }
+
+    /**
+     * Scrambles the seed of each turn with the MurmurHash3 finalizer. Seeds a plain multiple of the golden gamma
+     * apart, as {@code seed + gamma * turn} would be, are exactly one draw of {@link java.util.SplittableRandom}
+     * apart: every turn would roll the dice of the turn before it, shifted by one.
+     */
+    static long turnSeed(long seed, int turn) {
+        long z = seed + 0x9E3779B97F4A7C15L * (turn + 1);
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Stored by ordinal: new types go at the end.
+     */
+    public enum ActionType {
+        ATTACK,
+        HEAL
+    }
+
+    /**
+     * An action the player took on {@code turn}: an attack lasting {@code rounds} turns, or a heal (one turn).
+     */
+    public record Action(int turn, ActionType type, int rounds) {
+
+        public static Action attack(int turn, int rounds) {
+            return new Action(turn, ActionType.ATTACK, rounds);
+        }
+
+        public static Action heal(int turn) {
+            return new Action(turn, ActionType.HEAL, 1);
+        }
+    }
+
+    /**
+     * Where a running encounter is in its log: its seed and the number of the next turn.
+     */
+    public record Position(long seed, int nextTurn) {
+
+        public DiceThrower diceFor(int round) {
+            return CombatLog.diceFor(seed, nextTurn + round);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only storage of the {@link CombatLog}s. Logs outlive their encounters, so that finished fights can be
+ * replayed.
+ */
+public interface CombatLogRepository {
+
+    CombatLogRepository NONE = new CombatLogRepository() {
+        @Override
+        public void start(CombatLog log) {
+        }
+
+        @Override
+        public Optional<CombatLog.Position> position(UUID encounterId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void append(UUID encounterId, CombatLog.Action action) {
+        }
+
+        @Override
+        public Optional<CombatLog> findByEncounterId(UUID encounterId) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Opens the log of a new encounter, with no actions yet.
+     */
+    void start(CombatLog log);
+
+    /**
+     * @return empty if the encounter has no log, for example because it started before logs existed
+     */
+    Optional<CombatLog.Position> position(UUID encounterId);
+
+    void append(UUID encounterId, CombatLog.Action action);
+
+    Optional<CombatLog> findByEncounterId(UUID encounterId);
+}
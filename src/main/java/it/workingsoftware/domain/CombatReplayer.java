@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a {@link CombatLog} again through {@link CombatService}, rolling the same dice the live fight rolled.
+ */
+public class CombatReplayer {
+
+    public List<CombatEvent> replay(CombatLog log) {
+        // A fresh service: the potions drunk in the live encounter must not count against the replay
+        CombatService combatService = new CombatService(new DiceThrower(), new DamageCalculatorService(),
+            new HealService());
+        List<CombatEvent> events = new ArrayList<>();
+        Adventurer adventurer = log.adventurer();
+        Monster monster = log.monster();
+        for (CombatLog.Action action : log.actions()) {
+            for (int round = 0; round < action.rounds(); round++) {
+                DiceThrower dice = CombatLog.diceFor(log.seed(), action.turn() + round);
+                AttackResult result = switch (action.type()) {
+                    case ATTACK -> combatService.handleAttack(adventurer, monster, dice);
+                    case HEAL -> combatService.heal(adventurer,
+                        new Encounter(log.encounterId(), adventurer.id(), monster), dice);
+                };
+                events.addAll(result.events());
+                adventurer = result.updatedAdventurer();
+                monster = result.updatedMonster();
+            }
+        }
+        combatService.endEncounter(log.encounterId());
+        return events;
+    }
+}
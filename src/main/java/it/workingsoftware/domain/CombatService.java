@@ -12,8 +12,10 @@ import it.workingsoftware.domain.exception.PotionLimitUsageReachedException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 public class CombatService {
+    private static final List<Weapon> MONSTER_WEAPONS = List.of(Weapon.CLUB);
 
     private final DiceThrower diceThrower;
     private final DamageCalculatorService damageCalculatorService;
@@ -27,34 +29,41 @@ public class CombatService {
     }
 
     public AttackResult handleAttack(Adventurer adventurer, Monster monster) {
-        List<String> actions = new ArrayList<>();
+        return handleAttack(adventurer, monster, diceThrower);
+    }
+
+    /**
+     * Plays the turn with the given dice instead of the service's own, so that it can be replayed.
+     */
+    public AttackResult handleAttack(Adventurer adventurer, Monster monster, DiceThrower diceThrower) {
+        List<CombatEvent> events = new ArrayList<>();
         int damageDealtByAdventurer = 0;
         int damageDealtByMonster = 0;
         if (diceThrower.rollToHit()) {
             damageDealtByAdventurer =
                 damageCalculatorService.getDamage(adventurer.attack(), adventurer.weapons(), monster.defense());
-            actions.add(adventurer.name() + " attacks... And hit for " + damageDealtByAdventurer + " damage!");
+            events.add(CombatEvent.hit(adventurer.name(), damageDealtByAdventurer));
             if (monster.hp() - damageDealtByAdventurer <= 0) {
-                actions.add(monster.name() + " is dead!");
+                events.add(CombatEvent.death(monster.name()));
             }
         } else {
-            actions.add(adventurer.name() + " attacks... But misses!");
+            events.add(CombatEvent.miss(adventurer.name()));
         }
         if (monster.hp() - damageDealtByAdventurer > 0) {
             if (diceThrower.rollToHit()) {
                 damageDealtByMonster =
-                    damageCalculatorService.getDamage(monster.attack(), List.of(Weapon.CLUB), adventurer.defense());
-                actions.add(monster.name() + " attacks... And hit for " + damageDealtByMonster + " damage!");
+                    damageCalculatorService.getDamage(monster.attack(), MONSTER_WEAPONS, adventurer.defense());
+                events.add(CombatEvent.hit(monster.name(), damageDealtByMonster));
                 if (adventurer.hp() - damageDealtByMonster <= 0) {
-                    actions.add(adventurer.name() + " is dead!");
+                    events.add(CombatEvent.death(adventurer.name()));
                 }
             } else {
-                actions.add(monster.name() + " attacks... But misses!");
+                events.add(CombatEvent.miss(monster.name()));
             }
         }
 
         return new AttackResult(
-            actions,
+            events,
             new Adventurer(
                 adventurer.id(),
                 adventurer.name(),
@@ -75,26 +84,33 @@ public class CombatService {
     }
 
     public AttackResult heal(Adventurer adventurer, Encounter encounter) {
+        return heal(adventurer, encounter, diceThrower);
+    }
+
+    /**
+     * Plays the turn with the given dice instead of the service's own, so that it can be replayed.
+     */
+    public AttackResult heal(Adventurer adventurer, Encounter encounter, DiceThrower diceThrower) {
         Monster monster = encounter.monster();
-        List<String> actions = new ArrayList<>();
+        List<CombatEvent> events = new ArrayList<>();
         int damageDealtByMonster = 0;
 
         Adventurer healedAdventurer = healService.heal(adventurer, encounter.id());
-        actions.add(adventurer.name() + " heals for 5 hp!");
+        events.add(CombatEvent.heal(adventurer.name(), healedAdventurer.hp() - adventurer.hp()));
 
         if (diceThrower.rollToHit()) {
             damageDealtByMonster =
-                damageCalculatorService.getDamage(monster.attack(), List.of(Weapon.CLUB), adventurer.defense());
-            actions.add(monster.name() + " attacks... And hit for " + damageDealtByMonster + " damage!");
+                damageCalculatorService.getDamage(monster.attack(), MONSTER_WEAPONS, adventurer.defense());
+            events.add(CombatEvent.hit(monster.name(), damageDealtByMonster));
             if (healedAdventurer.hp() - damageDealtByMonster <= 0) {
-                actions.add(adventurer.name() + " is dead!");
+                events.add(CombatEvent.death(adventurer.name()));
             }
         } else {
-            actions.add(monster.name() + " attacks... But misses!");
+            events.add(CombatEvent.miss(monster.name()));
         }
 
         return new AttackResult(
-            actions,
+            events,
             new Adventurer(
                 adventurer.id(),
                 adventurer.name(),
@@ -108,4 +124,11 @@ public class CombatService {
             monster
         );
     }
+
+    /**
+     * Releases what is kept in memory for an encounter that has been deleted.
+     */
+    public void endEncounter(UUID encounterId) {
+        healService.forget(encounterId);
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * One adventurer fighting one encounter, kept in memory between turns.
+ * <p>
+ * Turns are played on the state the session holds, with the same rules and dice as {@link AdventurerService}, so no
+ * turn reads the repositories. Their changes are handed to the writer executor and stored in the order they were
+ * played, without the player waiting for them. A turn that fails to be stored ends the session: it is logged, the
+ * turns queued after it are not stored and no turn can be played any more, so the repositories and the combat log
+ * never skip a turn.
+ * <p>
+ * While the session is open the HTTP routes refuse to play the adventurer, who can only be in one session at a time:
+ * see {@link AdventurerService#openSession}.
+ */
+public class CombatSession {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CombatSession.class);
+
+    private final AdventurerService adventurerService;
+    private final Executor writer;
+    private Adventurer adventurer;
+    private Encounter encounter;
+    private Optional<CombatLog.Position> position;
+    private boolean over;
+    private boolean failed;
+    private boolean closed;
+    private CompletableFuture<Void> stored = CompletableFuture.completedFuture(null);
+
+    CombatSession(AdventurerService adventurerService, Executor writer, Adventurer adventurer, Encounter encounter,
+                  Optional<CombatLog.Position> position) {
+        this.adventurerService = adventurerService;
+        this.writer = writer;
+        this.adventurer = adventurer;
+        this.encounter = encounter;
+        this.position = position;
+    }
+
+    public synchronized Adventurer adventurer() {
+        return adventurer;
+    }
+
+    public synchronized Encounter encounter() {
+        return encounter;
+    }
+
+    /**
+     * @return whether the adventurer or the monster died, after which no turn can be played
+     */
+    public synchronized boolean isOver() {
+        return over;
+    }
+
+    /**
+     * @return whether a turn failed to be stored, after which no turn can be played
+     */
+    public synchronized boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Resolves up to {@code rounds} combat rounds, stopping as soon as the adventurer or the monster dies.
+     */
+    public synchronized List<CombatEvent> attack(int rounds) {
+        if (rounds < 1) {
+            throw new IllegalArgumentException("Rounds must be at least 1");
+        }
+        requireRunning();
+        AdventurerService.Turn turn = adventurerService.timed("sessionAttack",
+            () -> adventurerService.playAttack(adventurer, encounter, position, rounds));
+        advance(turn, adventurerService::storeAttack);
+        return turn.events();
+    }
+
+    public synchronized List<CombatEvent> heal() {
+        requireRunning();
+        AdventurerService.Turn turn = adventurerService.timed("sessionHeal",
+            () -> adventurerService.playHeal(adventurer, encounter, position));
+        advance(turn, adventurerService::storeHeal);
+        return turn.events();
+    }
+
+    /**
+     * Ends the session. The adventurer is free to play again, over HTTP or in a new session, once the turns played
+     * so far are stored.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        UUID adventurerId = adventurer.id();
+        stored.whenComplete((ignored, e) -> adventurerService.endSession(adventurerId));
+    }
+
+    /**
+     * @return completes once every turn played so far has been stored, or has failed to
+     */
+    public synchronized CompletableFuture<Void> stored() {
+        return stored;
+    }
+
+    private void requireRunning() {
+        if (closed) {
+            throw new IllegalStateException("The session is closed");
+        }
+        if (failed) {
+            throw new IllegalStateException("A turn could not be stored");
+        }
+        if (over) {
+            throw new IllegalStateException("The encounter is over");
+        }
+    }
+
+    private void advance(AdventurerService.Turn turn, Consumer<AdventurerService.Turn> store) {
+        adventurer = turn.adventurer();
+        encounter = turn.encounter();
+        over = turn.endsTheEncounter();
+        position = position.flatMap(at -> turn.action()
+            .map(action -> new CombatLog.Position(at.seed(), action.turn() + action.rounds())));
+        stored = stored.thenRunAsync(() -> {
+            if (!hasFailed()) {
+                adventurerService.store(turn, store);
+            }
+        }, writer).exceptionally(e -> {
+            LOGGER.error("Failed to store a turn of adventurer {}, ending the session", turn.adventurer().id(), e);
+            fail();
+            return null;
+        });
+    }
+
+    private synchronized void fail() {
+        failed = true;
+    }
+}
@@ -16,11 +16,10 @@ public class DamageCalculatorService {
             throw new MissingWeaponException();
         }
 
-        int damageWithWeapon = weapons.stream().mapToInt(weapon -> switch (weapon) {
-            case AXE, SWORD -> 3;
-            case CLUB -> 1;
-            case DAGGER -> 2;
-        }).sum();
+        int damageWithWeapon = 0;
+        for (int i = 0; i < weapons.size(); i++) {
+            damageWithWeapon += weapons.get(i).bonus();
+        }
 
         return Math.max(attack + damageWithWeapon - defense, 0);
     }
@@ -6,8 +6,40 @@
 
 package it.workingsoftware.domain;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Rolls the dice. By default every thread rolls with its own {@link ThreadLocalRandom}, so concurrent requests never
+ * contend on a shared generator; {@link #seeded} gives a reproducible sequence instead.
+ */
 public class DiceThrower {
+    public static final double HIT_CHANCE = 0.66;
+
+    private final Supplier<RandomGenerator> random;
+
+    public DiceThrower() {
+        this(ThreadLocalRandom::current);
+    }
+
+    /**
+     * @param random the generator to roll with, asked for on every roll
+     */
+    public DiceThrower(Supplier<RandomGenerator> random) {
+        this.random = random;
+    }
+
+    /**
+     * Rolls the same sequence for the same seed. Not thread-safe: use one per thread, or per encounter.
+     */
+    public static DiceThrower seeded(long seed) {
+        RandomGenerator generator = new SplittableRandom(seed);
+        return new DiceThrower(() -> generator);
+    }
+
     public boolean rollToHit() {
-        return Math.random() < 0.66;
+        return random.get().nextDouble() < HIT_CHANCE;
     }
 }
@@ -9,23 +9,28 @@ package it.workingsoftware.domain;
 import it.workingsoftware.domain.exception.NoPotionsException;
 import it.workingsoftware.domain.exception.PotionLimitUsageReachedException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Drinks potions, at most one per encounter.
+ * <p>
+ * The encounters that already used their potion are kept in memory for as long as the encounter lives: only
+ * {@link #forget}, called when the encounter ends or is deleted, drops one. Nothing is evicted by age or by count,
+ * since a live encounter that lost its mark could heal a second time.
+ */
 public class HealService {
-
-    final List<UUID> usedPotions = new ArrayList<>();
+    private final Set<UUID> usedPotions = ConcurrentHashMap.newKeySet();
 
     public Adventurer heal(Adventurer adventurer, UUID encounterId) {
         if (adventurer.numberOfPotions() <= 0) {
             throw new NoPotionsException();
         }
-        if (usedPotions.contains(encounterId)) {
+        if (!usedPotions.add(encounterId)) {
             throw new PotionLimitUsageReachedException();
         }
 
-        usedPotions.add(encounterId);
         return new Adventurer(
             adventurer.id(),
             adventurer.name(),
@@ -37,4 +42,15 @@ public class HealService {
             adventurer.numberOfPotions() - 1
         );
     }
+
+    /**
+     * Stops tracking an encounter that has ended or was deleted.
+     */
+    public void forget(UUID encounterId) {
+        usedPotions.remove(encounterId);
+    }
+
+    int trackedEncounters() {
+        return usedPotions.size();
+    }
 }
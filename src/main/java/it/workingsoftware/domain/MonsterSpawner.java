@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the monster of a new encounter: usually a goblin, sometimes Azog.
+ */
+public class MonsterSpawner {
+    static final double GOBLIN_CHANCE = 0.66;
+
+    private final Supplier<RandomGenerator> random;
+
+    public MonsterSpawner() {
+        this(ThreadLocalRandom::current);
+    }
+
+    public MonsterSpawner(Supplier<RandomGenerator> random) {
+        this.random = random;
+    }
+
+    public Monster spawn() {
+        return random.get().nextDouble() < GOBLIN_CHANCE
+            ? new Monster("Goblin", 10, 2, 2)
+            : new Monster("Azog il Goblin", 100, 10, 5);
+    }
+}
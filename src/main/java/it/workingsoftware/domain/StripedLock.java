@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared by id: work on the same id is serialized, work on different ids almost always runs in
+ * parallel, and memory does not grow with the number of ids.
+ */
+class StripedLock {
+    static final int DEFAULT_STRIPES = 256;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    StripedLock(int stripes) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a positive power of two");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    <T> T withLock(UUID id, Supplier<T> work) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ReentrantLock lockFor(UUID id) {
+        int hash = id.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+}
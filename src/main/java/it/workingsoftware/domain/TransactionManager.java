@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work so that every repository change it makes is committed together, or not at all.
+ * Nested calls join the unit of work that is already running on the current thread.
+ */
+public interface TransactionManager {
+
+    TransactionManager NONE = new TransactionManager() {
+        @Override
+        public <T> T inTransaction(Supplier<T> work) {
+            return work.get();
+        }
+    };
+
+    <T> T inTransaction(Supplier<T> work);
+}
@@ -7,8 +7,59 @@
 package it.workingsoftware.domain;
 
 public enum Weapon {
-    AXE,
-    CLUB,
-    DAGGER,
-    SWORD
+    AXE(0, 3),
+    CLUB(1, 1),
+    DAGGER(2, 2),
+    SWORD(3, 3);
+
+    private static final Weapon[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (Weapon weapon : values()) {
+            maxCode = Math.max(maxCode, weapon.code);
+        }
+        BY_CODE = new Weapon[maxCode + 1];
+        for (Weapon weapon : values()) {
+            BY_CODE[weapon.code] = weapon;
+        }
+    }
+
+    private final int code;
+    private final int bonus;
+
+    Weapon(int code, int bonus) {
+        this.code = code;
+        this.bonus = bonus;
+    }
+
+    /**
+     * Identifies the weapon in stored loadouts, whatever its position in the enum. Stored: never change the code of a
+     * weapon nor reuse one, a new weapon takes the next free code.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * @return one more than the highest code
+     */
+    public static int codes() {
+        return BY_CODE.length;
+    }
+
+    public static Weapon ofCode(int code) {
+        Weapon weapon = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (weapon == null) {
+            throw new IllegalArgumentException("No weapon has code " + code);
+        }
+        return weapon;
+    }
+
+    /**
+     * Damage added to the attack by each copy of this weapon.
+     */
+    public int bonus() {
+        return bonus;
+    }
 }
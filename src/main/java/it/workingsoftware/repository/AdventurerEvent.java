@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A change to one of the numbers of an adventurer, as stored by {@link EventSourcedAdventurerRepository}.
+ */
+public record AdventurerEvent(Type type, int delta) {
+
+    /**
+     * Stored by ordinal: new types go at the end.
+     */
+    public enum Type {
+        HP,
+        ATTACK,
+        DEFENSE,
+        MONEY,
+        POTIONS,
+        DELETED,
+        /**
+         * Name or weapons changed: the snapshot written at the same seq holds them.
+         */
+        RENAMED
+    }
+
+    /**
+     * @return the events that turn {@code before} into {@code after}, ignoring name and weapons
+     */
+    static List<AdventurerEvent> between(Adventurer before, Adventurer after) {
+        List<AdventurerEvent> events = new ArrayList<>(2);
+        addIfChanged(events, Type.HP, after.hp() - before.hp());
+        addIfChanged(events, Type.ATTACK, after.attack() - before.attack());
+        addIfChanged(events, Type.DEFENSE, after.defense() - before.defense());
+        addIfChanged(events, Type.MONEY, after.money() - before.money());
+        addIfChanged(events, Type.POTIONS, after.numberOfPotions() - before.numberOfPotions());
+        return events;
+    }
+
+    private static void addIfChanged(List<AdventurerEvent> events, Type type, int delta) {
+        if (delta != 0) {
+            events.add(new AdventurerEvent(type, delta));
+        }
+    }
+
+    Adventurer applyTo(Adventurer adventurer) {
+        return switch (type) {
+            case HP -> new Adventurer(adventurer.id(), adventurer.name(), adventurer.weapons(),
+                adventurer.hp() + delta, adventurer.attack(), adventurer.defense(), adventurer.money(),
+                adventurer.numberOfPotions());
+            case ATTACK -> new Adventurer(adventurer.id(), adventurer.name(), adventurer.weapons(), adventurer.hp(),
+                adventurer.attack() + delta, adventurer.defense(), adventurer.money(), adventurer.numberOfPotions());
+            case DEFENSE -> new Adventurer(adventurer.id(), adventurer.name(), adventurer.weapons(), adventurer.hp(),
+                adventurer.attack(), adventurer.defense() + delta, adventurer.money(), adventurer.numberOfPotions());
+            case MONEY -> new Adventurer(adventurer.id(), adventurer.name(), adventurer.weapons(), adventurer.hp(),
+                adventurer.attack(), adventurer.defense(), adventurer.money() + delta, adventurer.numberOfPotions());
+            case POTIONS -> new Adventurer(adventurer.id(), adventurer.name(), adventurer.weapons(), adventurer.hp(),
+                adventurer.attack(), adventurer.defense(), adventurer.money(), adventurer.numberOfPotions() + delta);
+            case DELETED, RENAMED -> adventurer;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AdventurerRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Serves adventurers from memory and writes them back to {@code delegate} through the {@link WriteBehindFlusher}.
+ */
+public class CachingAdventurerRepository implements AdventurerRepository {
+    private final AdventurerRepository delegate;
+    private final WriteBehindCache<Adventurer> cache;
+    private final WriteBehindFlusher flusher;
+
+    public CachingAdventurerRepository(AdventurerRepository delegate, int maxEntries, Duration ttl,
+                                       WriteBehindFlusher flusher) {
+        this.delegate = delegate;
+        this.cache = new WriteBehindCache<>(new WriteBehindCache.Store<>() {
+            @Override
+            public void insert(Adventurer adventurer) {
+                delegate.save(adventurer);
+            }
+
+            @Override
+            public void update(Adventurer adventurer) {
+                delegate.update(adventurer);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                delegate.delete(id);
+            }
+        }, maxEntries, ttl);
+        flusher.register(cache);
+        this.flusher = flusher;
+    }
+
+    @Override
+    public void save(Adventurer adventurer) {
+        cache.insert(adventurer.id(), adventurer);
+    }
+
+    @Override
+    public void saveAll(List<Adventurer> adventurers) {
+        adventurers.forEach(this::save);
+    }
+
+    @Override
+    public Optional<Adventurer> findById(UUID id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public void update(Adventurer adventurer) {
+        cache.update(adventurer.id(), adventurer);
+    }
+
+    @Override
+    public void delete(UUID id) {
+        cache.delete(id);
+    }
+
+    /**
+     * Flushes the pending writes first, so the scan sees them, then reads {@code delegate}.
+     */
+    @Override
+    public void scan(UUID after, int limit, Consumer<Adventurer> consumer) {
+        flusher.flush();
+        delegate.scan(after, limit, consumer);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.EncounterRepository;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Serves encounters from memory and writes them back to {@code delegate} through the {@link WriteBehindFlusher}.
+ * The current encounter of each recently seen adventurer is remembered too, so {@link #findByAdventurerId} is served
+ * from memory as well.
+ */
+public class CachingEncounterRepository implements EncounterRepository {
+    private final EncounterRepository delegate;
+    private final WriteBehindCache<Encounter> cache;
+    private final Map<UUID, UUID> encounterByAdventurer;
+
+    public CachingEncounterRepository(EncounterRepository delegate, int maxEntries, Duration ttl,
+                                      WriteBehindFlusher flusher) {
+        this.delegate = delegate;
+        this.cache = new WriteBehindCache<>(new WriteBehindCache.Store<>() {
+            @Override
+            public void insert(Encounter encounter) {
+                delegate.save(encounter);
+            }
+
+            @Override
+            public void update(Encounter encounter) {
+                delegate.update(encounter);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                delegate.delete(id);
+            }
+        }, maxEntries, ttl);
+        this.encounterByAdventurer = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, UUID> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        flusher.register(cache);
+    }
+
+    @Override
+    public void save(Encounter encounter) {
+        cache.insert(encounter.id(), encounter);
+        encounterByAdventurer.put(encounter.adventurerId(), encounter.id());
+    }
+
+    @Override
+    public Optional<Encounter> findById(UUID id) {
+        return cache.find(id, delegate::findById);
+    }
+
+    @Override
+    public Optional<Encounter> findByAdventurerId(UUID id) {
+        UUID encounterId = encounterByAdventurer.get(id);
+        if (encounterId != null) {
+            Optional<Encounter> encounter = cache.find(encounterId, delegate::findById);
+            if (encounter.isPresent()) {
+                return encounter;
+            }
+        }
+        Optional<Encounter> stored = delegate.findByAdventurerId(id);
+        if (stored.isEmpty()) {
+            return stored;
+        }
+        Optional<Encounter> encounter = cache.find(stored.get().id(), ignored -> stored);
+        encounter.ifPresent(current -> encounterByAdventurer.put(id, current.id()));
+        return encounter;
+    }
+
+    @Override
+    public void update(Encounter encounter) {
+        cache.update(encounter.id(), encounter);
+    }
+
+    @Override
+    public void delete(UUID id) {
+        cache.find(id, ignored -> Optional.empty())
+            .ifPresent(encounter -> encounterByAdventurer.remove(encounter.adventurerId(), id));
+        cache.delete(id);
+    }
+}
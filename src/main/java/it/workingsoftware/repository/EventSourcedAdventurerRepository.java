@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AdventurerRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Stores adventurers as an append-only log: a snapshot when they are created, then one small event per changed number
+ * ({@link AdventurerEvent}). Every {@value #SNAPSHOT_EVERY} events a new snapshot is appended, so loading an
+ * adventurer never folds more than that many events. Nothing is ever rewritten, so every past version stays
+ * available through {@link #history}.
+ * <p>
+ * Name and weapons never change during a fight; when they do, a {@code RENAMED} event is appended and a snapshot is
+ * written right away at its seq. Saving an id that was already saved fails, even once it is deleted.
+ */
+public class EventSourcedAdventurerRepository implements AdventurerRepository {
+    static final int SNAPSHOT_EVERY = 32;
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO adventurer_snapshots (adventurer_id, seq, name, weapons, hp, attack, defense, money, number_of_potions) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_EVENT =
+            "INSERT INTO adventurer_events (adventurer_id, seq, type, delta) VALUES (?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+    private static final AdventurerEvent.Type[] TYPES = AdventurerEvent.Type.values();
+
+    private final SqliteConnectionPool connectionPool;
+
+    public EventSourcedAdventurerRepository(SqliteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public void save(Adventurer adventurer) {
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(INSERT_SNAPSHOT);
+            bindSnapshot(stmt, adventurer, 0);
+            stmt.executeUpdate();
+        });
+    }
+
+    @Override
+    public void saveAll(List<Adventurer> adventurers) {
+        connectionPool.inTransaction(() -> {
+            connectionPool.write(connection -> {
+                PreparedStatement stmt = connection.prepare(INSERT_SNAPSHOT);
+                for (int i = 0; i < adventurers.size(); i++) {
+                    bindSnapshot(stmt, adventurers.get(i), 0);
+                    stmt.addBatch();
+                    if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Adventurer> findById(UUID id) {
+        return connectionPool.read(connection -> load(connection, id).map(State::adventurer));
+    }
+
+    @Override
+    public void update(Adventurer adventurer) {
+        connectionPool.inTransaction(() -> {
+            connectionPool.write(connection -> {
+                Optional<State> loaded = load(connection, adventurer.id());
+                if (loaded.isEmpty()) {
+                    return;
+                }
+                State current = loaded.get();
+                long seq = current.seq();
+                for (AdventurerEvent event : AdventurerEvent.between(current.adventurer(), adventurer)) {
+                    appendEvent(connection, adventurer.id(), ++seq, event);
+                }
+                boolean renamed = !adventurer.name().equals(current.adventurer().name())
+                    || WeaponCodec.encode(adventurer.weapons()) != WeaponCodec.encode(current.adventurer().weapons());
+                if (renamed) {
+                    // A seq of its own, or the snapshot would collide with the latest one
+                    appendEvent(connection, adventurer.id(), ++seq,
+                        new AdventurerEvent(AdventurerEvent.Type.RENAMED, 0));
+                }
+                if (renamed || seq - current.snapshotSeq() >= SNAPSHOT_EVERY) {
+                    PreparedStatement stmt = connection.prepare(INSERT_SNAPSHOT);
+                    bindSnapshot(stmt, adventurer, seq);
+                    stmt.executeUpdate();
+                }
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(UUID id) {
+        connectionPool.write(connection -> {
+            Optional<State> current = load(connection, id);
+            if (current.isPresent()) {
+                appendEvent(connection, id, current.get().seq() + 1, new AdventurerEvent(AdventurerEvent.Type.DELETED, 0));
+            }
+        });
+    }
+
+    /**
+     * Walks the ids that have a snapshot and folds each adventurer on the same connection, skipping deleted ones.
+     */
+    @Override
+    public void scan(UUID after, int limit, Consumer<Adventurer> consumer) {
+        connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare(
+                    "SELECT DISTINCT adventurer_id FROM adventurer_snapshots WHERE adventurer_id > ? ORDER BY adventurer_id");
+            stmt.setBytes(1, UuidCodec.lowerBound(after));
+            int found = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (found < limit && rs.next()) {
+                    Optional<State> state = load(connection, UuidCodec.fromBytes(rs.getBytes("adventurer_id")));
+                    if (state.isPresent()) {
+                        consumer.accept(state.get().adventurer());
+                        found++;
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return every version the adventurer went through, oldest first, deleted adventurers included
+     */
+    public List<Adventurer> history(UUID id) {
+        return connectionPool.read(connection -> {
+            PreparedStatement snapshotStmt = connection.prepare(
+                    "SELECT seq, name, weapons, hp, attack, defense, money, number_of_potions FROM adventurer_snapshots WHERE adventurer_id = ? ORDER BY seq");
+            snapshotStmt.setBytes(1, UuidCodec.toBytes(id));
+            List<Long> snapshotSeqs = new ArrayList<>();
+            List<Adventurer> snapshots = new ArrayList<>();
+            try (ResultSet rs = snapshotStmt.executeQuery()) {
+                while (rs.next()) {
+                    snapshotSeqs.add(rs.getLong("seq"));
+                    snapshots.add(readSnapshot(id, rs));
+                }
+            }
+            List<Adventurer> versions = new ArrayList<>();
+            if (snapshots.isEmpty()) {
+                return versions;
+            }
+
+            PreparedStatement eventStmt = connection.prepare(
+                    "SELECT seq, type, delta FROM adventurer_events WHERE adventurer_id = ? ORDER BY seq");
+            eventStmt.setBytes(1, UuidCodec.toBytes(id));
+            Adventurer adventurer = snapshots.get(0);
+            versions.add(adventurer);
+            int nextSnapshot = 1;
+            try (ResultSet rs = eventStmt.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong("seq");
+                    // A snapshot at seq n already includes the events up to n
+                    while (nextSnapshot < snapshots.size() && snapshotSeqs.get(nextSnapshot) < seq) {
+                        adventurer = addIfChanged(versions, adventurer, snapshots.get(nextSnapshot++));
+                    }
+                    AdventurerEvent event = readEvent(rs);
+                    // The snapshot at the seq of a rename adds the renamed version
+                    if (event.type() != AdventurerEvent.Type.DELETED && event.type() != AdventurerEvent.Type.RENAMED) {
+                        adventurer = event.applyTo(adventurer);
+                        versions.add(adventurer);
+                    }
+                }
+            }
+            while (nextSnapshot < snapshots.size()) {
+                adventurer = addIfChanged(versions, adventurer, snapshots.get(nextSnapshot++));
+            }
+            return versions;
+        });
+    }
+
+    private static Adventurer addIfChanged(List<Adventurer> versions, Adventurer current, Adventurer snapshot) {
+        if (!snapshot.equals(current)) {
+            versions.add(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Folds the events written after the latest snapshot of the adventurer.
+     */
+    private static Optional<State> load(PooledConnection connection, UUID id) throws SQLException {
+        PreparedStatement snapshotStmt = connection.prepare(
+                "SELECT seq, name, weapons, hp, attack, defense, money, number_of_potions FROM adventurer_snapshots WHERE adventurer_id = ? ORDER BY seq DESC LIMIT 1");
+        snapshotStmt.setBytes(1, UuidCodec.toBytes(id));
+        long snapshotSeq;
+        Adventurer adventurer;
+        try (ResultSet rs = snapshotStmt.executeQuery()) {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            snapshotSeq = rs.getLong("seq");
+            adventurer = readSnapshot(id, rs);
+        }
+
+        PreparedStatement eventStmt = connection.prepare(
+                "SELECT seq, type, delta FROM adventurer_events WHERE adventurer_id = ? AND seq > ? ORDER BY seq");
+        eventStmt.setBytes(1, UuidCodec.toBytes(id));
+        eventStmt.setLong(2, snapshotSeq);
+        long seq = snapshotSeq;
+        try (ResultSet rs = eventStmt.executeQuery()) {
+            while (rs.next()) {
+                seq = rs.getLong("seq");
+                AdventurerEvent event = readEvent(rs);
+                if (event.type() == AdventurerEvent.Type.DELETED) {
+                    return Optional.empty();
+                }
+                adventurer = event.applyTo(adventurer);
+            }
+        }
+        return Optional.of(new State(adventurer, seq, snapshotSeq));
+    }
+
+    private static void appendEvent(PooledConnection connection, UUID id, long seq, AdventurerEvent event)
+            throws SQLException {
+        PreparedStatement stmt = connection.prepare(INSERT_EVENT);
+        stmt.setBytes(1, UuidCodec.toBytes(id));
+        stmt.setLong(2, seq);
+        stmt.setInt(3, event.type().ordinal());
+        stmt.setInt(4, event.delta());
+        stmt.executeUpdate();
+    }
+
+    private static void bindSnapshot(PreparedStatement stmt, Adventurer adventurer, long seq) throws SQLException {
+        stmt.setBytes(1, UuidCodec.toBytes(adventurer.id()));
+        stmt.setLong(2, seq);
+        stmt.setString(3, adventurer.name());
+        stmt.setInt(4, WeaponCodec.encode(adventurer.weapons()));
+        stmt.setInt(5, adventurer.hp());
+        stmt.setInt(6, adventurer.attack());
+        stmt.setInt(7, adventurer.defense());
+        stmt.setInt(8, adventurer.money());
+        stmt.setInt(9, adventurer.numberOfPotions());
+    }
+
+    private static Adventurer readSnapshot(UUID id, ResultSet rs) throws SQLException {
+        return new Adventurer(
+                id,
+                rs.getString("name"),
+                WeaponCodec.decode(rs.getInt("weapons")),
+                rs.getInt("hp"),
+                rs.getInt("attack"),
+                rs.getInt("defense"),
+                rs.getInt("money"),
+                rs.getInt("number_of_potions")
+        );
+    }
+
+    private static AdventurerEvent readEvent(ResultSet rs) throws SQLException {
+        return new AdventurerEvent(TYPES[rs.getInt("type")], rs.getInt("delta"));
+    }
+
+    /**
+     * An adventurer as of event {@code seq}, folded on top of the snapshot taken at {@code snapshotSeq}.
+     */
+    private record State(Adventurer adventurer, long seq, long snapshotSeq) {
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AdventurerRepository;
+import it.workingsoftware.domain.Weapon;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps adventurers in a {@link MappedJournal}, one fixed-size record each: no SQL and no JDBC on the way.
+ * Names are limited to {@value #MAX_NAME_BYTES} bytes of UTF-8 and loadouts to {@value #MAX_WEAPONS} weapons.
+ */
+public class JournalAdventurerRepository implements AdventurerRepository, AutoCloseable {
+    static final int MAX_NAME_BYTES = Adventurer.MAX_NAME_BYTES;
+    static final int MAX_WEAPONS = 8;
+    private static final int INITIAL_CAPACITY = 4_096;
+
+    private final MappedJournal<Adventurer> journal;
+
+    public JournalAdventurerRepository(Path file) {
+        this.journal = new MappedJournal<>(file, new Codec(), INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void save(Adventurer adventurer) {
+        journal.put(adventurer.id(), adventurer);
+    }
+
+    /**
+     * The journal has no transactions: the whole batch is checked before the first record is appended, so that an
+     * adventurer that does not fit cannot leave the ones before it saved.
+     */
+    @Override
+    public void saveAll(List<Adventurer> adventurers) {
+        for (Adventurer adventurer : adventurers) {
+            Codec.requireFits(adventurer);
+        }
+        for (Adventurer adventurer : adventurers) {
+            journal.put(adventurer.id(), adventurer);
+        }
+    }
+
+    @Override
+    public Optional<Adventurer> findById(UUID id) {
+        return journal.get(id);
+    }
+
+    @Override
+    public void update(Adventurer adventurer) {
+        if (journal.contains(adventurer.id())) {
+            journal.put(adventurer.id(), adventurer);
+        }
+    }
+
+    @Override
+    public void delete(UUID id) {
+        journal.remove(id);
+    }
+
+    /**
+     * The journal is not ordered: the ids are sorted in memory first, the records are still read one at a time.
+     */
+    @Override
+    public void scan(UUID after, int limit, Consumer<Adventurer> consumer) {
+        journal.keys().stream()
+            .filter(id -> after == null || UuidCodec.BYTE_ORDER.compare(id, after) > 0)
+            .sorted(UuidCodec.BYTE_ORDER)
+            .map(journal::get)
+            .flatMap(Optional::stream)
+            .limit(limit)
+            .forEach(consumer);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+    /**
+     * name length (2), name, weapon count (1), weapon codes, hp, attack, defense, money, potions.
+     */
+    private static class Codec implements MappedJournal.RecordCodec<Adventurer> {
+
+        @Override
+        public int size() {
+            return 2 + MAX_NAME_BYTES + 1 + MAX_WEAPONS + 5 * Integer.BYTES;
+        }
+
+        static void requireFits(Adventurer adventurer) {
+            requireFits(adventurer, adventurer.name().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void requireFits(Adventurer adventurer, byte[] name) {
+            if (name.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("Names are limited to " + MAX_NAME_BYTES + " bytes");
+            }
+            if (adventurer.weapons().size() > MAX_WEAPONS) {
+                throw new IllegalArgumentException("At most " + MAX_WEAPONS + " weapons can be carried");
+            }
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, Adventurer adventurer) {
+            byte[] name = adventurer.name().getBytes(StandardCharsets.UTF_8);
+            requireFits(adventurer, name);
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            buffer.put(new byte[MAX_NAME_BYTES - name.length]);
+            buffer.put((byte) adventurer.weapons().size());
+            for (int i = 0; i < MAX_WEAPONS; i++) {
+                buffer.put(i < adventurer.weapons().size() ? (byte) adventurer.weapons().get(i).code() : 0);
+            }
+            buffer.putInt(adventurer.hp());
+            buffer.putInt(adventurer.attack());
+            buffer.putInt(adventurer.defense());
+            buffer.putInt(adventurer.money());
+            buffer.putInt(adventurer.numberOfPotions());
+        }
+
+        @Override
+        public Adventurer read(UUID id, ByteBuffer buffer) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            buffer.position(2 + MAX_NAME_BYTES);
+            int weaponCount = buffer.get();
+            List<Weapon> weapons = new ArrayList<>(weaponCount);
+            for (int i = 0; i < weaponCount; i++) {
+                weapons.add(Weapon.ofCode(buffer.get()));
+            }
+            buffer.position(2 + MAX_NAME_BYTES + 1 + MAX_WEAPONS);
+            return new Adventurer(
+                id,
+                new String(name, StandardCharsets.UTF_8),
+                weapons,
+                buffer.getInt(),
+                buffer.getInt(),
+                buffer.getInt(),
+                buffer.getInt(),
+                buffer.getInt()
+            );
+        }
+    }
+}
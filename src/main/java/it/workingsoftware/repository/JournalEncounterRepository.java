@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.EncounterRepository;
+import it.workingsoftware.domain.Monster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps encounters in a {@link MappedJournal}, one fixed-size record each, and indexes them by adventurer in memory.
+ * The adventurer index is rebuilt from the journal on startup. Monster names are limited to
+ * {@value #MAX_MONSTER_NAME_BYTES} bytes of UTF-8.
+ */
+public class JournalEncounterRepository implements EncounterRepository, AutoCloseable {
+    static final int MAX_MONSTER_NAME_BYTES = 30;
+    private static final int INITIAL_CAPACITY = 4_096;
+
+    private final MappedJournal<Encounter> journal;
+    private final Map<UUID, UUID> encountersByAdventurer = new ConcurrentHashMap<>();
+
+    public JournalEncounterRepository(Path file) {
+        this.journal = new MappedJournal<>(file, new Codec(), INITIAL_CAPACITY);
+        // In journal order, so that the latest encounter of an adventurer wins as it did before the restart
+        for (Encounter encounter : journal.values()) {
+            encountersByAdventurer.put(encounter.adventurerId(), encounter.id());
+        }
+    }
+
+    @Override
+    public void save(Encounter encounter) {
+        journal.put(encounter.id(), encounter);
+        encountersByAdventurer.put(encounter.adventurerId(), encounter.id());
+    }
+
+    @Override
+    public Optional<Encounter> findById(UUID id) {
+        return journal.get(id);
+    }
+
+    @Override
+    public Optional<Encounter> findByAdventurerId(UUID id) {
+        UUID encounterId = encountersByAdventurer.get(id);
+        return encounterId == null ? Optional.empty() : journal.get(encounterId);
+    }
+
+    @Override
+    public void update(Encounter encounter) {
+        if (journal.contains(encounter.id())) {
+            journal.put(encounter.id(), encounter);
+        }
+    }
+
+    @Override
+    public void delete(UUID id) {
+        journal.get(id).ifPresent(encounter -> {
+            journal.remove(id);
+            encountersByAdventurer.remove(encounter.adventurerId(), id);
+        });
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+    /**
+     * adventurer id (16), monster name length (2), monster name, hp, attack, defense.
+     */
+    private static class Codec implements MappedJournal.RecordCodec<Encounter> {
+
+        @Override
+        public int size() {
+            return 16 + 2 + MAX_MONSTER_NAME_BYTES + 3 * Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, Encounter encounter) {
+            byte[] name = encounter.monster().name().getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_MONSTER_NAME_BYTES) {
+                throw new IllegalArgumentException("Monster names are limited to " + MAX_MONSTER_NAME_BYTES
+                    + " bytes");
+            }
+            buffer.putLong(encounter.adventurerId().getMostSignificantBits());
+            buffer.putLong(encounter.adventurerId().getLeastSignificantBits());
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            buffer.put(new byte[MAX_MONSTER_NAME_BYTES - name.length]);
+            buffer.putInt(encounter.monster().hp());
+            buffer.putInt(encounter.monster().attack());
+            buffer.putInt(encounter.monster().defense());
+        }
+
+        @Override
+        public Encounter read(UUID id, ByteBuffer buffer) {
+            UUID adventurerId = new UUID(buffer.getLong(), buffer.getLong());
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            buffer.position(16 + 2 + MAX_MONSTER_NAME_BYTES);
+            Monster monster = new Monster(new String(name, StandardCharsets.UTF_8), buffer.getInt(),
+                buffer.getInt(), buffer.getInt());
+            return new Encounter(id, adventurerId, monster);
+        }
+    }
+}
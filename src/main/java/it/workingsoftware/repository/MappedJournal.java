@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of fixed-size records, keyed by UUID, in a memory-mapped file.
+ * <p>
+ * Every put appends the whole record and a delete appends a tombstone, so a write never touches the records already
+ * in the file. An in-memory index points each key at its latest record. Opening the file replays the journal to
+ * rebuild the index: replay stops at the first record whose checksum does not match, a write torn by a crash, and
+ * everything after it is wiped.
+ * <p>
+ * When the file is full and at least half of it is stale, the live records are copied to a new file that replaces
+ * the old one; otherwise the file doubles. A single mapping addresses at most {@value #MAX_BYTES} bytes, so the file
+ * stops growing there: it is compacted while any record is stale and a put into a file full of live records throws
+ * {@link IllegalStateException}.
+ * <p>
+ * Writes reach the page cache, not the disk: they survive the process dying but not the machine, unless
+ * {@link #force} runs in between.
+ */
+public class MappedJournal<T> implements AutoCloseable {
+    private static final byte EMPTY = 0;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    // checksum (4), status (1), key (16)
+    private static final int HEADER_SIZE = 21;
+    // A MappedByteBuffer is indexed by int
+    static final int MAX_BYTES = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final RecordCodec<T> codec;
+    private final int recordSize;
+    private final int maxCapacity;
+    private final Map<UUID, Integer> index = new HashMap<>();
+    private final byte[] scratch;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int next;
+
+    public MappedJournal(Path path, RecordCodec<T> codec, int initialCapacity) {
+        this(path, codec, initialCapacity, MAX_BYTES);
+    }
+
+    MappedJournal(Path path, RecordCodec<T> codec, int initialCapacity, int maxBytes) {
+        this.path = path;
+        this.codec = codec;
+        // Aligned, so that a record never straddles two pages
+        this.recordSize = Integer.highestOneBit(HEADER_SIZE + codec.size() - 1) << 1;
+        this.maxCapacity = maxBytes / recordSize;
+        this.scratch = new byte[recordSize];
+        if (initialCapacity > maxCapacity) {
+            throw new IllegalArgumentException("A journal holds at most " + maxCapacity + " records");
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            if (channel.size() > (long) maxCapacity * recordSize) {
+                channel.close();
+                throw new IllegalStateException("Journal " + path + " is larger than " + maxBytes + " bytes");
+            }
+            capacity = Math.max(initialCapacity, (int) (channel.size() / recordSize));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * recordSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal " + path, e);
+        }
+        replay();
+    }
+
+    private void replay() {
+        while (next < capacity) {
+            int offset = next * recordSize;
+            byte status = buffer.get(offset + 4);
+            if (status == EMPTY || buffer.getInt(offset) != checksum(offset)) {
+                break;
+            }
+            UUID key = new UUID(buffer.getLong(offset + 5), buffer.getLong(offset + 13));
+            if (status == PUT) {
+                index.put(key, next);
+            } else {
+                index.remove(key);
+            }
+            next++;
+        }
+        // Anything past a torn record is older than what will be written there next
+        for (int slot = next; slot < capacity; slot++) {
+            if (buffer.get(slot * recordSize + 4) != EMPTY) {
+                buffer.put(slot * recordSize, new byte[recordSize]);
+            }
+        }
+    }
+
+    public synchronized Optional<T> get(UUID key) {
+        Integer slot = index.get(key);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        return Optional.of(codec.read(key, buffer.slice(slot * recordSize + HEADER_SIZE, codec.size())));
+    }
+
+    public synchronized boolean contains(UUID key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized void put(UUID key, T value) {
+        int offset = reserve();
+        codec.write(buffer.slice(offset + HEADER_SIZE, codec.size()), value);
+        seal(offset, PUT, key);
+        index.put(key, next++);
+    }
+
+    public synchronized void remove(UUID key) {
+        if (index.remove(key) == null) {
+            return;
+        }
+        int offset = reserve();
+        seal(offset, DELETE, key);
+        next++;
+    }
+
+    /**
+     * @return the keys of the live records, in no particular order
+     */
+    public synchronized List<UUID> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * @return the live records, in the order they were last written
+     */
+    public synchronized List<T> values() {
+        List<T> values = new ArrayList<>(index.size());
+        for (Map.Entry<UUID, Integer> entry : bySlot()) {
+            values.add(codec.read(entry.getKey(), buffer.slice(entry.getValue() * recordSize + HEADER_SIZE,
+                codec.size())));
+        }
+        return values;
+    }
+
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    private void seal(int offset, byte status, UUID key) {
+        buffer.put(offset + 4, status);
+        buffer.putLong(offset + 5, key.getMostSignificantBits());
+        buffer.putLong(offset + 13, key.getLeastSignificantBits());
+        // Written last: a record is only valid once its checksum is
+        buffer.putInt(offset, checksum(offset));
+    }
+
+    private int checksum(int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 4, recordSize - 4));
+        return (int) crc.getValue();
+    }
+
+    private int reserve() {
+        if (next == capacity) {
+            if (index.size() * 2 <= capacity) {
+                compact();
+            } else if (capacity < maxCapacity) {
+                remap((int) Math.min(capacity * 2L, maxCapacity));
+            } else if (index.size() < capacity) {
+                compact();
+            } else {
+                throw new IllegalStateException("Journal " + path + " is full: it holds at most " + maxCapacity
+                    + " live records");
+            }
+        }
+        return next * recordSize;
+    }
+
+    private void remap(int newCapacity) {
+        try {
+            MappedByteBuffer grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * recordSize);
+            // The old mapping is only unmapped once it is collected: flush it now so no write waits on that
+            buffer.force();
+            buffer = grown;
+            capacity = newCapacity;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow journal " + path, e);
+        }
+    }
+
+    private void compact() {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            FileChannel newChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) capacity * recordSize);
+            int slot = 0;
+            // In journal order, so that the compacted file keeps the order the records were written in
+            for (Map.Entry<UUID, Integer> entry : bySlot()) {
+                buffer.get(entry.getValue() * recordSize, scratch);
+                newBuffer.put(slot * recordSize, scratch);
+                entry.setValue(slot++);
+            }
+            newBuffer.force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = newChannel;
+            buffer = newBuffer;
+            next = slot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact journal " + path, e);
+        }
+    }
+
+    private List<Map.Entry<UUID, Integer>> bySlot() {
+        List<Map.Entry<UUID, Integer>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close journal " + path, e);
+        }
+    }
+
+    /**
+     * Lays out a value in exactly {@link #size()} bytes.
+     */
+    public interface RecordCodec<T> {
+        int size();
+
+        void write(ByteBuffer buffer, T value);
+
+        T read(UUID key, ByteBuffer buffer);
+    }
+}
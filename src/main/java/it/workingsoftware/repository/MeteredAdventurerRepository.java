@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AdventurerRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Records the latency of every call to {@code delegate}.
+ */
+public class MeteredAdventurerRepository implements AdventurerRepository {
+    private final AdventurerRepository delegate;
+    private final MeterRegistry registry;
+    private final RepositoryTimer timer;
+
+    public MeteredAdventurerRepository(AdventurerRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.timer = new RepositoryTimer(registry, "adventurer");
+    }
+
+    @Override
+    public void save(Adventurer adventurer) {
+        timer.record("save", () -> delegate.save(adventurer));
+    }
+
+    @Override
+    public void saveAll(List<Adventurer> adventurers) {
+        timer.record("saveAll", () -> delegate.saveAll(adventurers));
+    }
+
+    @Override
+    public Optional<Adventurer> findById(UUID id) {
+        return timer.record("findById", () -> delegate.findById(id));
+    }
+
+    @Override
+    public void update(Adventurer adventurer) {
+        timer.record("update", () -> delegate.update(adventurer));
+    }
+
+    @Override
+    public void delete(UUID id) {
+        timer.record("delete", () -> delegate.delete(id));
+    }
+
+    /**
+     * Times the reads only: the time {@code consumer} takes, writing a response for instance, is left out.
+     */
+    @Override
+    public void scan(UUID after, int limit, Consumer<Adventurer> consumer) {
+        Clock clock = registry.config().clock();
+        long[] consuming = new long[1];
+        timer.record("scan", () -> {
+            delegate.scan(after, limit, adventurer -> {
+                long start = clock.monotonicTime();
+                try {
+                    consumer.accept(adventurer);
+                } finally {
+                    consuming[0] += clock.monotonicTime() - start;
+                }
+            });
+            return null;
+        }, () -> consuming[0]);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.workingsoftware.domain.CombatLog;
+import it.workingsoftware.domain.CombatLogRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Records the latency of every call to {@code delegate}.
+ */
+public class MeteredCombatLogRepository implements CombatLogRepository {
+    private final CombatLogRepository delegate;
+    private final RepositoryTimer timer;
+
+    public MeteredCombatLogRepository(CombatLogRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.timer = new RepositoryTimer(registry, "combatLog");
+    }
+
+    @Override
+    public void start(CombatLog log) {
+        timer.record("start", () -> delegate.start(log));
+    }
+
+    @Override
+    public Optional<CombatLog.Position> position(UUID encounterId) {
+        return timer.record("position", () -> delegate.position(encounterId));
+    }
+
+    @Override
+    public void append(UUID encounterId, CombatLog.Action action) {
+        timer.record("append", () -> delegate.append(encounterId, action));
+    }
+
+    @Override
+    public Optional<CombatLog> findByEncounterId(UUID encounterId) {
+        return timer.record("findByEncounterId", () -> delegate.findByEncounterId(encounterId));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.EncounterRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Records the latency of every call to {@code delegate}.
+ */
+public class MeteredEncounterRepository implements EncounterRepository {
+    private final EncounterRepository delegate;
+    private final RepositoryTimer timer;
+
+    public MeteredEncounterRepository(EncounterRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.timer = new RepositoryTimer(registry, "encounter");
+    }
+
+    @Override
+    public void save(Encounter encounter) {
+        timer.record("save", () -> delegate.save(encounter));
+    }
+
+    @Override
+    public Optional<Encounter> findById(UUID id) {
+        return timer.record("findById", () -> delegate.findById(id));
+    }
+
+    @Override
+    public Optional<Encounter> findByAdventurerId(UUID id) {
+        return timer.record("findByAdventurerId", () -> delegate.findByAdventurerId(id));
+    }
+
+    @Override
+    public void update(Encounter encounter) {
+        timer.record("update", () -> delegate.update(encounter));
+    }
+
+    @Override
+    public void delete(UUID id) {
+        timer.record("delete", () -> delegate.delete(id));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A connection borrowed from the {@link SqliteConnectionPool} for the duration of one operation.
+ * <p>
+ * Statements returned by {@link #prepare(String)} belong to the pool: callers must close their result sets, but
+ * never the statements themselves.
+ */
+public class PooledConnection {
+    private final Connection connection;
+    private final StatementCache statementCache;
+    // Operations running on this connection, outermost included: only its owner thread touches it
+    private int depth;
+
+    PooledConnection(Connection connection, int statementCacheSize) {
+        this.connection = connection;
+        this.statementCache = new StatementCache(connection, statementCacheSize);
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return statementCache.prepare(sql);
+    }
+
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    Connection connection() {
+        return connection;
+    }
+
+    int cachedStatements() {
+        return statementCache.size();
+    }
+
+    void enter() {
+        depth++;
+    }
+
+    /**
+     * Ends an operation; the statements it no longer needs are closed only when the outermost one ends, since a read
+     * nested in a write runs on the same connection.
+     */
+    void exit() throws SQLException {
+        if (--depth == 0) {
+            statementCache.release();
+        }
+    }
+
+    void close() throws SQLException {
+        statementCache.close();
+        connection.close();
+    }
+}
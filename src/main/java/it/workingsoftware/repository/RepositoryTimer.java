@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Times the calls of one repository as {@code combat.repository}, tagged with the method and the exception thrown,
+ * if any. Every timer publishes a latency histogram, so slow queries show up in the high percentiles.
+ */
+class RepositoryTimer {
+    static final String NAME = "combat.repository";
+
+    private final MeterRegistry registry;
+    private final String repository;
+
+    RepositoryTimer(MeterRegistry registry, String repository) {
+        this.registry = registry;
+        this.repository = repository;
+    }
+
+    <T> T record(String method, Supplier<T> call) {
+        return record(method, call, () -> 0);
+    }
+
+    /**
+     * Like {@link #record(String, Supplier)}, leaving out the {@code elsewhere} nanoseconds the call spent outside of
+     * the repository, such as in a callback.
+     */
+    <T> T record(String method, Supplier<T> call, LongSupplier elsewhere) {
+        long start = registry.config().clock().monotonicTime();
+        String exception = "none";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = registry.config().clock().monotonicTime() - start - elsewhere.getAsLong();
+            Timer.builder(NAME)
+                .description("Time spent in repository methods")
+                .tags("repository", repository, "method", method, "exception", exception)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void record(String method, Runnable call) {
+        record(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
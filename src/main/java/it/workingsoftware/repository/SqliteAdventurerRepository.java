@@ -8,97 +8,132 @@ package it.workingsoftware.repository;
 
 import it.workingsoftware.domain.Adventurer;
 import it.workingsoftware.domain.AdventurerRepository;
-import it.workingsoftware.domain.Weapon;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class SqliteAdventurerRepository implements AdventurerRepository {
-    private final Connection connection;
+    private static final String INSERT =
+            "INSERT INTO adventurers (id, name, weapons, hp, attack, defense, money, number_of_potions) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
 
-    public SqliteAdventurerRepository(Connection connection) {
-        this.connection = connection;
+    private final SqliteConnectionPool connectionPool;
+
+    public SqliteAdventurerRepository(SqliteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @Override
     public void save(Adventurer adventurer) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
-                    "INSERT INTO adventurers (id, name, weapon, hp, attack, defense, money, number_of_potions) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
-            stmt.setString(1, adventurer.id().toString());
-            stmt.setString(2, adventurer.name());
-            stmt.setString(3, adventurer.weapons().stream().map(Weapon::name).collect(Collectors.joining(",")));
-            stmt.setInt(4, adventurer.hp());
-            stmt.setInt(5, adventurer.attack());
-            stmt.setInt(6, adventurer.defense());
-            stmt.setInt(7, adventurer.money());
-            stmt.setInt(8, adventurer.numberOfPotions());
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(INSERT);
+            bindInsert(stmt, adventurer);
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
+    }
+
+    @Override
+    public void saveAll(List<Adventurer> adventurers) {
+        connectionPool.inTransaction(() -> {
+            connectionPool.write(connection -> {
+                PreparedStatement stmt = connection.prepare(INSERT);
+                for (int i = 0; i < adventurers.size(); i++) {
+                    bindInsert(stmt, adventurers.get(i));
+                    stmt.addBatch();
+                    if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+            });
+            return null;
+        });
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Adventurer adventurer) throws SQLException {
+        stmt.setBytes(1, UuidCodec.toBytes(adventurer.id()));
+        stmt.setString(2, adventurer.name());
+        stmt.setInt(3, WeaponCodec.encode(adventurer.weapons()));
+        stmt.setInt(4, adventurer.hp());
+        stmt.setInt(5, adventurer.attack());
+        stmt.setInt(6, adventurer.defense());
+        stmt.setInt(7, adventurer.money());
+        stmt.setInt(8, adventurer.numberOfPotions());
     }
 
     @Override
     public Optional<Adventurer> findById(UUID id) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement("SELECT id, name, weapon, hp, attack, defense, money, number_of_potions FROM adventurers WHERE id = ?");
-            stmt.setString(1, id.toString());
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return Optional.of(new Adventurer(
-                        UUID.fromString(rs.getString("id")),
-                        rs.getString("name"),
-                        Arrays.stream(rs.getString("weapon").split(","))
-                                .filter(s -> !s.isEmpty())
-                                .map(Weapon::valueOf)
-                                .collect(Collectors.toList()),
-                        rs.getInt("hp"),
-                        rs.getInt("attack"),
-                        rs.getInt("defense"),
-                        rs.getInt("money"),
-                        rs.getInt("number_of_potions")
-                ));
+        return connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare("SELECT id, name, weapons, hp, attack, defense, money, number_of_potions FROM adventurers WHERE id = ?");
+            stmt.setBytes(1, UuidCodec.toBytes(id));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(readAdventurer(rs));
+                }
+                return Optional.empty();
             }
-            return Optional.empty();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
+    }
+
+    /**
+     * Walks the primary key from {@code after} on, keeping one row in memory at a time.
+     */
+    @Override
+    public void scan(UUID after, int limit, Consumer<Adventurer> consumer) {
+        connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare("SELECT id, name, weapons, hp, attack, defense, money, number_of_potions FROM adventurers WHERE id > ? ORDER BY id LIMIT ?");
+            stmt.setBytes(1, UuidCodec.lowerBound(after));
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(readAdventurer(rs));
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Adventurer readAdventurer(ResultSet rs) throws SQLException {
+        return new Adventurer(
+                UuidCodec.fromBytes(rs.getBytes("id")),
+                rs.getString("name"),
+                WeaponCodec.decode(rs.getInt("weapons")),
+                rs.getInt("hp"),
+                rs.getInt("attack"),
+                rs.getInt("defense"),
+                rs.getInt("money"),
+                rs.getInt("number_of_potions")
+        );
     }
 
     @Override
     public void update(Adventurer adventurer) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
-                    "UPDATE adventurers SET name = ?, weapon = ?, hp = ?, attack = ?, defense = ?, money = ?, number_of_potions = ? WHERE id = ?");
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(
+                    "UPDATE adventurers SET name = ?, weapons = ?, hp = ?, attack = ?, defense = ?, money = ?, number_of_potions = ? WHERE id = ?");
             stmt.setString(1, adventurer.name());
-            stmt.setString(2, adventurer.weapons().stream().map(Weapon::name).collect(Collectors.joining(",")));
+            stmt.setInt(2, WeaponCodec.encode(adventurer.weapons()));
             stmt.setInt(3, adventurer.hp());
             stmt.setInt(4, adventurer.attack());
             stmt.setInt(5, adventurer.defense());
             stmt.setInt(6, adventurer.money());
             stmt.setInt(7, adventurer.numberOfPotions());
-            stmt.setString(8, adventurer.id().toString());
+            stmt.setBytes(8, UuidCodec.toBytes(adventurer.id()));
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     @Override
     public void delete(UUID id) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement("DELETE FROM adventurers WHERE id = ?");
-            stmt.setString(1, id.toString());
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare("DELETE FROM adventurers WHERE id = ?");
+            stmt.setBytes(1, UuidCodec.toBytes(id));
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.CombatLog;
+import it.workingsoftware.domain.CombatLogRepository;
+import it.workingsoftware.domain.Monster;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the header of every log in {@code encounter_logs} and appends one row per player action to
+ * {@code encounter_actions}. An action is packed in a single integer, {@code rounds << 1 | type}, so a row costs a
+ * handful of bytes next to its key.
+ */
+public class SqliteCombatLogRepository implements CombatLogRepository {
+    private static final CombatLog.ActionType[] ACTION_TYPES = CombatLog.ActionType.values();
+
+    private final SqliteConnectionPool connectionPool;
+
+    public SqliteCombatLogRepository(SqliteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public void start(CombatLog log) {
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(
+                "INSERT INTO encounter_logs (encounter_id, seed, adventurer_id, name, weapons, hp, attack, defense, money, number_of_potions, monster_name, monster_hp, monster_attack, monster_defense) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            Adventurer adventurer = log.adventurer();
+            Monster monster = log.monster();
+            stmt.setBytes(1, UuidCodec.toBytes(log.encounterId()));
+            stmt.setLong(2, log.seed());
+            stmt.setBytes(3, UuidCodec.toBytes(adventurer.id()));
+            stmt.setString(4, adventurer.name());
+            stmt.setInt(5, WeaponCodec.encode(adventurer.weapons()));
+            stmt.setInt(6, adventurer.hp());
+            stmt.setInt(7, adventurer.attack());
+            stmt.setInt(8, adventurer.defense());
+            stmt.setInt(9, adventurer.money());
+            stmt.setInt(10, adventurer.numberOfPotions());
+            stmt.setString(11, monster.name());
+            stmt.setInt(12, monster.hp());
+            stmt.setInt(13, monster.attack());
+            stmt.setInt(14, monster.defense());
+            stmt.executeUpdate();
+        });
+    }
+
+    @Override
+    public Optional<CombatLog.Position> position(UUID encounterId) {
+        return connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare(
+                "SELECT l.seed, COALESCE((SELECT a.turn + (a.action >> 1) FROM encounter_actions a WHERE a.encounter_id = l.encounter_id ORDER BY a.turn DESC LIMIT 1), 0) AS next_turn FROM encounter_logs l WHERE l.encounter_id = ?");
+            stmt.setBytes(1, UuidCodec.toBytes(encounterId));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new CombatLog.Position(rs.getLong("seed"), rs.getInt("next_turn")));
+                }
+                return Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public void append(UUID encounterId, CombatLog.Action action) {
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(
+                "INSERT INTO encounter_actions (encounter_id, turn, action) VALUES (?, ?, ?)");
+            stmt.setBytes(1, UuidCodec.toBytes(encounterId));
+            stmt.setInt(2, action.turn());
+            stmt.setInt(3, action.rounds() << 1 | action.type().ordinal());
+            stmt.executeUpdate();
+        });
+    }
+
+    @Override
+    public Optional<CombatLog> findByEncounterId(UUID encounterId) {
+        return connectionPool.read(connection -> {
+            PreparedStatement header = connection.prepare(
+                "SELECT seed, adventurer_id, name, weapons, hp, attack, defense, money, number_of_potions, monster_name, monster_hp, monster_attack, monster_defense FROM encounter_logs WHERE encounter_id = ?");
+            header.setBytes(1, UuidCodec.toBytes(encounterId));
+            long seed;
+            Adventurer adventurer;
+            Monster monster;
+            try (ResultSet rs = header.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                seed = rs.getLong("seed");
+                adventurer = new Adventurer(
+                    UuidCodec.fromBytes(rs.getBytes("adventurer_id")),
+                    rs.getString("name"),
+                    WeaponCodec.decode(rs.getInt("weapons")),
+                    rs.getInt("hp"),
+                    rs.getInt("attack"),
+                    rs.getInt("defense"),
+                    rs.getInt("money"),
+                    rs.getInt("number_of_potions"));
+                monster = new Monster(rs.getString("monster_name"), rs.getInt("monster_hp"),
+                    rs.getInt("monster_attack"), rs.getInt("monster_defense"));
+            }
+
+            PreparedStatement actions = connection.prepare(
+                "SELECT turn, action FROM encounter_actions WHERE encounter_id = ? ORDER BY turn");
+            actions.setBytes(1, UuidCodec.toBytes(encounterId));
+            List<CombatLog.Action> logged = new ArrayList<>();
+            try (ResultSet rs = actions.executeQuery()) {
+                while (rs.next()) {
+                    int action = rs.getInt("action");
+                    logged.add(new CombatLog.Action(rs.getInt("turn"), ACTION_TYPES[action & 1], action >>> 1));
+                }
+            }
+            return Optional.of(new CombatLog(encounterId, seed, adventurer, monster, logged));
+        });
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.TransactionManager;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Hands out SQLite connections to the repositories, one operation at a time.
+ * <p>
+ * The database runs in WAL mode, so any number of readers can work next to the single writer: reads borrow one of
+ * the read-only connections, writes queue up on the only writer connection. A thread that is already holding the
+ * writer reads through it too, so it always sees its own changes.
+ * <p>
+ * Writes made inside {@link #inTransaction} keep the writer for the whole unit of work and are committed at once.
+ * <p>
+ * Every connection keeps its own cache of prepared statements, so the hot queries are compiled once per connection
+ * instead of once per call.
+ */
+public class SqliteConnectionPool implements TransactionManager, AutoCloseable {
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final PooledConnection writer;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+
+    public SqliteConnectionPool(String jdbcUrl, int readerConnections) {
+        this(jdbcUrl, readerConnections, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public SqliteConnectionPool(String jdbcUrl, int readerConnections, int statementCacheSize) {
+        if (readerConnections < 1) {
+            throw new IllegalArgumentException("At least one reader connection is required");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative");
+        }
+        try {
+            writer = open(jdbcUrl, false, statementCacheSize);
+            readers = new ArrayBlockingQueue<>(readerConnections);
+            for (int i = 0; i < readerConnections; i++) {
+                PooledConnection reader = open(jdbcUrl, true, statementCacheSize);
+                allReaders.add(reader);
+                readers.add(reader);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to open connection pool", e);
+        }
+    }
+
+    private static PooledConnection open(String jdbcUrl, boolean readOnly, int statementCacheSize) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+        config.setReadOnly(readOnly);
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        return new PooledConnection(config.createConnection(jdbcUrl), statementCacheSize);
+    }
+
+    public <T> T read(SqlWork<T> work) {
+        if (writerLock.isHeldByCurrentThread()) {
+            return run(writer, work);
+        }
+        PooledConnection reader = borrowReader();
+        try {
+            return run(reader, work);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    public void write(SqlAction action) {
+        writerLock.lock();
+        try {
+            run(writer, connection -> {
+                action.apply(connection);
+                return null;
+            });
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        writerLock.lock();
+        try {
+            if (writerLock.getHoldCount() > 1) {
+                return work.get();
+            }
+            writer.enter();
+            try {
+                return runInTransaction(writer.connection(), work);
+            } finally {
+                exit(writer);
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private static <T> T runInTransaction(Connection connection, Supplier<T> work) {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.get();
+                connection.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Transaction failed", e);
+        }
+    }
+
+    private PooledConnection borrowReader() {
+        try {
+            return readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private static <T> T run(PooledConnection connection, SqlWork<T> work) {
+        connection.enter();
+        try {
+            return work.apply(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            exit(connection);
+        }
+    }
+
+    private static void exit(PooledConnection connection) {
+        try {
+            connection.exit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            for (PooledConnection reader : allReaders) {
+                reader.close();
+            }
+            writer.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to close connection pool", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T apply(PooledConnection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface SqlAction {
+        void apply(PooledConnection connection) throws SQLException;
+    }
+}
@@ -6,7 +6,6 @@
 
 package it.workingsoftware.repository;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -18,90 +17,81 @@ import it.workingsoftware.domain.EncounterRepository;
 import it.workingsoftware.domain.Monster;
 
 public class SqliteEncounterRepository implements EncounterRepository {
-    private final Connection connection;
+    private final SqliteConnectionPool connectionPool;
 
-    public SqliteEncounterRepository(Connection connection) {
-        this.connection = connection;
+    public SqliteEncounterRepository(SqliteConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @Override
     public void save(Encounter encounter) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(
                 "INSERT INTO encounters (id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense) VALUES (?, ?, ?, ?, ?, ?)");
-            stmt.setString(1, encounter.id().toString());
-            stmt.setString(2, encounter.adventurerId().toString());
+            stmt.setBytes(1, UuidCodec.toBytes(encounter.id()));
+            stmt.setBytes(2, UuidCodec.toBytes(encounter.adventurerId()));
             stmt.setString(3, encounter.monster().name());
             stmt.setInt(4, encounter.monster().hp());
             stmt.setInt(5, encounter.monster().attack());
             stmt.setInt(6, encounter.monster().defense());
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     @Override
     public Optional<Encounter> findById(UUID id) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
+        return connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare(
                 "SELECT id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense FROM encounters WHERE id = ?");
-            stmt.setString(1, id.toString());
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return Optional.of(
-                    new Encounter(UUID.fromString(rs.getString("id")), UUID.fromString(rs.getString("adventurer_id")),
-                        new Monster(rs.getString("monster_name"), rs.getInt("monster_hp"), rs.getInt("monster_attack"),
-                            rs.getInt("monster_defense"))));
-            }
-            return Optional.empty();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+            stmt.setBytes(1, UuidCodec.toBytes(id));
+            return findOne(stmt);
+        });
     }
 
     @Override
     public Optional<Encounter> findByAdventurerId(UUID id) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
+        return connectionPool.read(connection -> {
+            PreparedStatement stmt = connection.prepare(
                 "SELECT id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense FROM encounters WHERE adventurer_id = ?");
-            stmt.setString(1, id.toString());
-            ResultSet rs = stmt.executeQuery();
-            return Optional.of(
-                new Encounter(UUID.fromString(rs.getString("id")), UUID.fromString(rs.getString("adventurer_id")),
-                    new Monster(rs.getString("monster_name"), rs.getInt("monster_hp"), rs.getInt("monster_attack"),
-                        rs.getInt("monster_defense"))));
+            stmt.setBytes(1, UuidCodec.toBytes(id));
+            return findOne(stmt);
+        });
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+    private static Optional<Encounter> findOne(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return Optional.of(
+                    new Encounter(UuidCodec.fromBytes(rs.getBytes("id")),
+                        UuidCodec.fromBytes(rs.getBytes("adventurer_id")),
+                        new Monster(rs.getString("monster_name"), rs.getInt("monster_hp"), rs.getInt("monster_attack"),
+                            rs.getInt("monster_defense"))));
+            }
+            return Optional.empty();
         }
     }
 
     @Override
     public void update(Encounter encounter) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare(
                 "UPDATE encounters SET adventurer_id = ?, monster_name = ?, monster_hp = ?, monster_attack = ?, monster_defense = ? WHERE id = ?");
-            stmt.setString(1, encounter.adventurerId().toString());
+            stmt.setBytes(1, UuidCodec.toBytes(encounter.adventurerId()));
             stmt.setString(2, encounter.monster().name());
             stmt.setInt(3, encounter.monster().hp());
             stmt.setInt(4, encounter.monster().attack());
             stmt.setInt(5, encounter.monster().defense());
-            stmt.setString(6, encounter.id().toString());
+            stmt.setBytes(6, UuidCodec.toBytes(encounter.id()));
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     @Override
     public void delete(UUID id) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement("DELETE FROM encounters WHERE id = ?");
-            stmt.setString(1, id.toString());
+        connectionPool.write(connection -> {
+            PreparedStatement stmt = connection.prepare("DELETE FROM encounters WHERE id = ?");
+            stmt.setBytes(1, UuidCodec.toBytes(id));
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used cache of the prepared statements of a single connection.
+ * <p>
+ * A connection is only ever used by one thread at a time, so the cache is not synchronized. Statements evicted from
+ * the cache, or prepared while the cache is disabled, are closed when the outermost operation running on the
+ * connection ends.
+ */
+class StatementCache {
+    private final Connection connection;
+    private final int capacity;
+    private final Map<String, PreparedStatement> statements;
+    private final List<PreparedStatement> toClose = new ArrayList<>();
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    toClose.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (capacity == 0) {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            toClose.add(statement);
+            return statement;
+        }
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    void release() throws SQLException {
+        for (PreparedStatement statement : toClose) {
+            statement.close();
+        }
+        toClose.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    void close() throws SQLException {
+        release();
+        for (PreparedStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+}
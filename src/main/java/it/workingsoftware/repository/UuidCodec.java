@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Converts UUIDs to and from the 16-byte big-endian blobs stored in the id columns.
+ */
+final class UuidCodec {
+    /**
+     * The order of the blobs, byte by byte: {@link UUID#compareTo} compares signed numbers instead.
+     */
+    static final Comparator<UUID> BYTE_ORDER = Comparator
+        .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+        .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+    private static final byte[] BEFORE_ALL = new byte[0];
+
+    private UuidCodec() {
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    /**
+     * @return the blob of {@code uuid}, or one that sorts before every id when it is {@code null}
+     */
+    static byte[] lowerBound(UUID uuid) {
+        return uuid == null ? BEFORE_ALL : toBytes(uuid);
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Weapon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs a loadout in one integer: eight bits per {@link Weapon}, holding how many of it are carried, at bit
+ * {@code 8 * code}. Decoding is a few shifts, with no string parsing or enum lookups by name.
+ * <p>
+ * Only counts are kept, so weapons come back grouped in code order: {@code [SWORD, AXE]} reads back as
+ * {@code [AXE, SWORD]}.
+ */
+public final class WeaponCodec {
+    private static final int BITS = 8;
+    private static final int MAX_COUNT = (1 << BITS) - 1;
+
+    static {
+        if (Weapon.codes() * BITS > Integer.SIZE) {
+            throw new IllegalStateException("Too many weapons to pack in an int");
+        }
+    }
+
+    private WeaponCodec() {
+    }
+
+    public static int encode(List<Weapon> weapons) {
+        int[] counts = new int[Weapon.codes()];
+        for (Weapon weapon : weapons) {
+            if (++counts[weapon.code()] > MAX_COUNT) {
+                throw new IllegalArgumentException("At most " + MAX_COUNT + " of the same weapon can be carried");
+            }
+        }
+        int packed = 0;
+        for (int i = 0; i < counts.length; i++) {
+            packed |= counts[i] << (BITS * i);
+        }
+        return packed;
+    }
+
+    public static List<Weapon> decode(int packed) {
+        List<Weapon> weapons = new ArrayList<>(Integer.bitCount(packed));
+        for (int code = 0; code < Weapon.codes(); code++) {
+            int count = (packed >>> (BITS * code)) & MAX_COUNT;
+            for (int j = 0; j < count; j++) {
+                weapons.add(Weapon.ofCode(code));
+            }
+        }
+        return weapons;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.TransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the most recently used values of a repository in memory and queues the writes to it.
+ * <p>
+ * Writes are coalesced per id (an insert followed by two updates becomes one insert of the latest value, an insert
+ * followed by a delete disappears) until the {@link WriteBehindFlusher} drains them. Queued and in-flight writes are
+ * always consulted before the LRU/TTL entries, so evicting an entry never exposes stale data.
+ */
+class WriteBehindCache<V> {
+    static final int MAX_ATTEMPTS = 3;
+
+    private final Store<V> store;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<UUID, Cached<V>> entries;
+    private final Map<UUID, PendingWrite<V>> pending = new LinkedHashMap<>();
+    private final Map<UUID, PendingWrite<V>> inFlight = new HashMap<>();
+
+    WriteBehindCache(Store<V> store, int maxEntries, Duration ttl) {
+        this(store, maxEntries, ttl, System::nanoTime);
+    }
+
+    WriteBehindCache(Store<V> store, int maxEntries, Duration ttl, LongSupplier nanoTime) {
+        this.store = store;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Cached<V>> eldest) {
+                return size() > WriteBehindCache.this.maxEntries;
+            }
+        };
+    }
+
+    Optional<V> find(UUID id, Function<UUID, Optional<V>> loader) {
+        Optional<Optional<V>> known = known(id);
+        if (known.isPresent()) {
+            return known.get();
+        }
+        Optional<V> loaded = loader.apply(id);
+        synchronized (this) {
+            Optional<Optional<V>> changedMeanwhile = known(id);
+            if (changedMeanwhile.isPresent()) {
+                return changedMeanwhile.get();
+            }
+            loaded.ifPresent(value -> entries.put(id, new Cached<>(value, nanoTime.getAsLong())));
+            return loaded;
+        }
+    }
+
+    private synchronized Optional<Optional<V>> known(UUID id) {
+        PendingWrite<V> write = pending.containsKey(id) ? pending.get(id) : inFlight.get(id);
+        if (write != null) {
+            return Optional.of(Optional.ofNullable(write.value()));
+        }
+        Cached<V> cached = entries.get(id);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (nanoTime.getAsLong() - cached.loadedAt() > ttlNanos) {
+            entries.remove(id);
+            return Optional.empty();
+        }
+        return Optional.of(Optional.ofNullable(cached.value()));
+    }
+
+    synchronized void insert(UUID id, V value) {
+        write(id, Kind.INSERT, value);
+    }
+
+    synchronized void update(UUID id, V value) {
+        write(id, Kind.UPDATE, value);
+    }
+
+    synchronized void delete(UUID id) {
+        write(id, Kind.DELETE, null);
+    }
+
+    private void write(UUID id, Kind kind, V value) {
+        PendingWrite<V> merged = merge(pending.get(id), new PendingWrite<>(kind, value));
+        if (merged == null) {
+            pending.remove(id);
+        } else {
+            pending.put(id, merged);
+        }
+        entries.put(id, new Cached<>(value, nanoTime.getAsLong()));
+    }
+
+    private static <V> PendingWrite<V> merge(PendingWrite<V> older, PendingWrite<V> newer) {
+        if (older == null) {
+            return newer;
+        }
+        return switch (older.kind()) {
+            case INSERT -> newer.kind() == Kind.DELETE ? null : new PendingWrite<>(Kind.INSERT, newer.value());
+            case UPDATE -> newer.kind() == Kind.DELETE ? newer : new PendingWrite<>(Kind.UPDATE, newer.value());
+            case DELETE -> newer.kind() == Kind.INSERT
+                ? new PendingWrite<>(Kind.UPDATE, newer.value()) : new PendingWrite<>(Kind.DELETE, null);
+        };
+    }
+
+    synchronized int pendingWrites() {
+        return pending.size();
+    }
+
+    synchronized Flush drain() {
+        List<Map.Entry<UUID, PendingWrite<V>>> writes = new ArrayList<>(pending.entrySet());
+        inFlight.putAll(pending);
+        pending.clear();
+        return new Flush(writes);
+    }
+
+    /**
+     * The writes drained from the cache by one flush. They stay visible to readers until the flush completes, and go
+     * back to the queue, merged with any newer write, if the flush fails. A write the store keeps rejecting on its
+     * own is dropped after {@link #MAX_ATTEMPTS} tries, unless a newer write for the same id replaced it meanwhile.
+     */
+    class Flush {
+        private final List<Map.Entry<UUID, PendingWrite<V>>> writes;
+
+        private Flush(List<Map.Entry<UUID, PendingWrite<V>>> writes) {
+            this.writes = writes;
+        }
+
+        int size() {
+            return writes.size();
+        }
+
+        void apply() {
+            for (Map.Entry<UUID, PendingWrite<V>> write : writes) {
+                apply(write);
+            }
+        }
+
+        /**
+         * Applies every write in a transaction of its own, so that one write the store keeps rejecting cannot hold
+         * back the others. Writes that succeed are completed and those that fail are restored. A write that fails
+         * with a {@code permanent} error {@link #MAX_ATTEMPTS} times is dropped instead, and its entry invalidated so
+         * that readers go back to what is stored.
+         *
+         * @return how many writes failed
+         */
+        int applyEach(TransactionManager transactionManager, Predicate<RuntimeException> permanent,
+                      Consumer<UUID> dropped) {
+            int failed = 0;
+            for (Map.Entry<UUID, PendingWrite<V>> write : writes) {
+                try {
+                    transactionManager.inTransaction(() -> {
+                        apply(write);
+                        return null;
+                    });
+                } catch (RuntimeException e) {
+                    failed++;
+                    // A busy database or a full disk may pass: only the errors of the value itself count
+                    PendingWrite<V> retry = permanent.test(e) ? write.getValue().failed() : write.getValue();
+                    synchronized (WriteBehindCache.this) {
+                        inFlight.remove(write.getKey(), write.getValue());
+                        if (retry.failures() < MAX_ATTEMPTS || pending.containsKey(write.getKey())) {
+                            restore(write.getKey(), retry);
+                        } else {
+                            entries.remove(write.getKey());
+                            dropped.accept(write.getKey());
+                        }
+                    }
+                    continue;
+                }
+                synchronized (WriteBehindCache.this) {
+                    inFlight.remove(write.getKey(), write.getValue());
+                }
+            }
+            return failed;
+        }
+
+        private void apply(Map.Entry<UUID, PendingWrite<V>> write) {
+            switch (write.getValue().kind()) {
+                case INSERT -> store.insert(write.getValue().value());
+                case UPDATE -> store.update(write.getValue().value());
+                case DELETE -> store.delete(write.getKey());
+            }
+        }
+
+        void complete() {
+            synchronized (WriteBehindCache.this) {
+                for (Map.Entry<UUID, PendingWrite<V>> write : writes) {
+                    inFlight.remove(write.getKey(), write.getValue());
+                }
+            }
+        }
+
+        void restore() {
+            synchronized (WriteBehindCache.this) {
+                for (Map.Entry<UUID, PendingWrite<V>> write : writes) {
+                    inFlight.remove(write.getKey(), write.getValue());
+                    restore(write.getKey(), write.getValue());
+                }
+            }
+        }
+
+        private void restore(UUID id, PendingWrite<V> write) {
+            PendingWrite<V> newer = pending.remove(id);
+            PendingWrite<V> merged = newer == null ? write : merge(write, newer);
+            if (merged != null) {
+                pending.put(id, merged);
+            }
+        }
+    }
+
+    interface Store<V> {
+        void insert(V value);
+
+        void update(V value);
+
+        void delete(UUID id);
+    }
+
+    private enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    // failures counts the tries of this very value: merging in a newer value starts over
+    private record PendingWrite<V>(Kind kind, V value, int failures) {
+        PendingWrite(Kind kind, V value) {
+            this(kind, value, 0);
+        }
+
+        PendingWrite<V> failed() {
+            return new PendingWrite<>(kind, value, failures + 1);
+        }
+    }
+
+    private record Cached<V>(V value, long loadedAt) {
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import it.workingsoftware.domain.TransactionManager;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the queued changes of every registered cache to the underlying repositories, all of them in a
+ * single transaction. The flush interval is the longest time a change can stay in memory only.
+ * <p>
+ * After a failed flush the next one writes each change in a transaction of its own, so a change the database keeps
+ * rejecting is found instead of failing every flush forever. Only a change that breaks a constraint or does not fit
+ * ({@link #isPermanent}) is dropped, after {@link WriteBehindCache#MAX_ATTEMPTS} tries; dropped changes are logged
+ * and counted in {@code combat.cache.dropped}. Any other error is retried for as long as it lasts, with the scheduled
+ * flushes backing off exponentially up to {@link #MAX_BACKOFF}.
+ */
+public class WriteBehindFlusher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindFlusher.class);
+
+    private final TransactionManager transactionManager;
+    private final Duration flushInterval;
+    private final Counter dropped;
+    private final List<WriteBehindCache<?>> caches = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private int failedFlushes;
+    private long retryAt;
+
+    public WriteBehindFlusher(TransactionManager transactionManager, Duration flushInterval) {
+        this(transactionManager, flushInterval, Metrics.globalRegistry);
+    }
+
+    public WriteBehindFlusher(TransactionManager transactionManager, Duration flushInterval,
+                              MeterRegistry meterRegistry) {
+        this.transactionManager = transactionManager;
+        this.flushInterval = flushInterval;
+        this.dropped = Counter.builder("combat.cache.dropped")
+            .description("Write-behind changes given up after failing to be stored")
+            .register(meterRegistry);
+    }
+
+    void register(WriteBehindCache<?> cache) {
+        caches.add(cache);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void flush() {
+        List<WriteBehindCache<?>.Flush> flushes = caches.stream().<WriteBehindCache<?>.Flush>map(WriteBehindCache::drain).toList();
+        if (flushes.stream().allMatch(flush -> flush.size() == 0)) {
+            return;
+        }
+        if (failedFlushes > 0) {
+            flushEach(flushes);
+            return;
+        }
+        try {
+            transactionManager.inTransaction(() -> {
+                flushes.forEach(WriteBehindCache.Flush::apply);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            flushes.forEach(WriteBehindCache.Flush::restore);
+            backOff();
+            throw e;
+        }
+        flushes.forEach(WriteBehindCache.Flush::complete);
+        failedFlushes = 0;
+    }
+
+    private void flushEach(List<WriteBehindCache<?>.Flush> flushes) {
+        int failed = 0;
+        for (WriteBehindCache<?>.Flush flush : flushes) {
+            failed += flush.applyEach(transactionManager, WriteBehindFlusher::isPermanent, id -> {
+                LOGGER.error("Dropping the write-behind change of {} after {} rejected attempts", id,
+                    WriteBehindCache.MAX_ATTEMPTS);
+                dropped.increment();
+            });
+        }
+        if (failed == 0) {
+            failedFlushes = 0;
+        } else {
+            backOff();
+            LOGGER.warn("{} write-behind changes failed to be stored, the next try is in {} ms", failed,
+                TimeUnit.NANOSECONDS.toMillis(retryAt - System.nanoTime()));
+        }
+    }
+
+    private void backOff() {
+        failedFlushes++;
+        long backoff = flushInterval.toNanos() << Math.min(failedFlushes, 20);
+        retryAt = System.nanoTime() + Math.min(backoff, MAX_BACKOFF.toNanos());
+    }
+
+    /**
+     * Whether the change itself is rejected, so that trying it again cannot help: it breaks a constraint, or holds a
+     * value of the wrong type or size. A busy or locked database, a full disk or an I/O error may pass.
+     */
+    static boolean isPermanent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IllegalArgumentException) {
+                return true;
+            }
+            if (cause instanceof SQLiteException sqlite) {
+                // Extended result codes keep the primary code in their low byte
+                int primary = sqlite.getResultCode().code & 0xFF;
+                return primary == SQLiteErrorCode.SQLITE_CONSTRAINT.code
+                    || primary == SQLiteErrorCode.SQLITE_MISMATCH.code
+                    || primary == SQLiteErrorCode.SQLITE_TOOBIG.code;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void flushQuietly() {
+        if (failedFlushes > 0 && System.nanoTime() - retryAt < 0) {
+            return;
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.error("Write-behind flush failed, the changes will be retried", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushInterval.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.simulation;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AttackResult;
+import it.workingsoftware.domain.CombatService;
+import it.workingsoftware.domain.DamageCalculatorService;
+import it.workingsoftware.domain.DiceThrower;
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.HealService;
+import it.workingsoftware.domain.Monster;
+import it.workingsoftware.domain.MonsterSpawner;
+import it.workingsoftware.domain.Weapon;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many encounters through {@link CombatService}, in memory and in parallel, to see how the loadouts fare
+ * against the monsters that {@link MonsterSpawner} picks.
+ * <p>
+ * Every simulated adventurer attacks until the monster or themselves die, drinking their potion the first time they
+ * drop to {@value #HEAL_BELOW_HP} hp or less. The same seed always gives the same results, however many threads run
+ * the simulation.
+ */
+public class CombatSimulator {
+    static final int MAX_TURNS = 1_000;
+    static final int HEAL_BELOW_HP = 8;
+    private static final long ENCOUNTERS_PER_TASK = 10_000;
+
+    static final Map<String, List<Weapon>> LOADOUTS = new LinkedHashMap<>();
+
+    static {
+        LOADOUTS.put("axe", List.of(Weapon.AXE));
+        LOADOUTS.put("daggers", List.of(Weapon.DAGGER, Weapon.DAGGER));
+        LOADOUTS.put("sword", List.of(Weapon.SWORD));
+    }
+
+    private final ForkJoinPool pool;
+
+    public CombatSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates the loadouts players can choose and prints a report. Options, in {@code --name=value} form:
+     * {@code --encounters} per loadout (default 1000000), {@code --seed} (default random) and {@code --parallelism}
+     * (default number of CPUs).
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be given as --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        long encounters = Long.parseLong(options.getOrDefault("encounters", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        Map<String, Map<String, EncounterStats>> results = new CombatSimulator(pool).run(LOADOUTS, encounters, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("%d encounters per loadout, seed %d, %d threads, %.1f s (%.0f encounters/s)%n", encounters,
+            seed, parallelism, seconds, encounters * LOADOUTS.size() / seconds);
+        System.out.printf("%-8s %-16s %10s %8s %12s %8s %8s %8s %10s%n", "loadout", "monster", "encounters", "win %",
+            "mean turns", "p50", "p90", "p99", "potions");
+        results.forEach((loadout, byMonster) -> byMonster.forEach((monster, stats) ->
+            System.out.printf("%-8s %-16s %10d %8.2f %12.2f %8d %8d %8d %10.3f%n", loadout, monster,
+                stats.encounters(), stats.winRate() * 100, stats.meanTurnsToKill(), stats.turnsToKill(0.5),
+                stats.turnsToKill(0.9), stats.turnsToKill(0.99), stats.potionsPerEncounter())));
+    }
+
+    /**
+     * @return for every loadout, in the given order, the stats against each monster, by monster name
+     */
+    public Map<String, Map<String, EncounterStats>> run(Map<String, List<Weapon>> loadouts, long encountersPerLoadout,
+                                                         long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, Map<String, EncounterStats>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Weapon>> loadout : loadouts.entrySet()) {
+            SimulationTask task = new SimulationTask(loadout.getValue(), 0, encountersPerLoadout, random.split());
+            results.put(loadout.getKey(), new TreeMap<>(pool.invoke(task)));
+        }
+        return results;
+    }
+
+    // ForkJoinTask is Serializable, but tasks never leave the pool that runs them
+    @SuppressWarnings("serial")
+    private static class SimulationTask extends RecursiveTask<Map<String, EncounterStats>> {
+        private final List<Weapon> weapons;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        SimulationTask(List<Weapon> weapons, long from, long to, SplittableRandom random) {
+            this.weapons = weapons;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Map<String, EncounterStats> compute() {
+            if (to - from <= ENCOUNTERS_PER_TASK) {
+                return simulate();
+            }
+            long middle = from + (to - from) / 2;
+            // Split before anything else draws from the generator, so the sequences do not depend on scheduling
+            SimulationTask left = new SimulationTask(weapons, from, middle, random.split());
+            SimulationTask right = new SimulationTask(weapons, middle, to, random);
+            left.fork();
+            Map<String, EncounterStats> results = right.compute();
+            left.join().forEach((monster, stats) ->
+                results.computeIfAbsent(monster, name -> new EncounterStats()).merge(stats));
+            return results;
+        }
+
+        private Map<String, EncounterStats> simulate() {
+            CombatService combatService = new CombatService(new DiceThrower(() -> random),
+                new DamageCalculatorService(), new HealService());
+            MonsterSpawner monsterSpawner = new MonsterSpawner(() -> random);
+            Map<String, EncounterStats> results = new HashMap<>();
+            UUID adventurerId = new UUID(0, 0);
+
+            for (long i = from; i < to; i++) {
+                UUID encounterId = new UUID(1, i);
+                Adventurer adventurer = Adventurer.recruit(adventurerId, "Adventurer", weapons);
+                Monster monster = monsterSpawner.spawn();
+                String monsterName = monster.name();
+                int turns = 0;
+                int potions = 0;
+                while (adventurer.hp() > 0 && monster.hp() > 0 && turns < MAX_TURNS) {
+                    turns++;
+                    AttackResult result;
+                    if (potions == 0 && adventurer.hp() <= HEAL_BELOW_HP && adventurer.numberOfPotions() > 0) {
+                        result = combatService.heal(adventurer, new Encounter(encounterId, adventurerId, monster));
+                        potions++;
+                    } else {
+                        result = combatService.handleAttack(adventurer, monster);
+                    }
+                    adventurer = result.updatedAdventurer();
+                    monster = result.updatedMonster();
+                }
+                combatService.endEncounter(encounterId);
+
+                EncounterStats.Outcome outcome = monster.hp() <= 0 ? EncounterStats.Outcome.WIN
+                    : adventurer.hp() <= 0 ? EncounterStats.Outcome.LOSS
+                    : EncounterStats.Outcome.TIMEOUT;
+                results.computeIfAbsent(monsterName, name -> new EncounterStats()).record(outcome, turns, potions);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.simulation;
+
+/**
+ * Outcomes of the simulated encounters of one loadout against one monster. Not thread-safe: every worker fills its
+ * own and they are {@link #merge merged} at the end.
+ */
+public class EncounterStats {
+    private final long[] turnsToKill = new long[CombatSimulator.MAX_TURNS + 1];
+    private long encounters;
+    private long wins;
+    private long losses;
+    private long potionsUsed;
+
+    void record(Outcome outcome, int turns, int potions) {
+        encounters++;
+        potionsUsed += potions;
+        switch (outcome) {
+            case WIN -> {
+                wins++;
+                turnsToKill[turns]++;
+            }
+            case LOSS -> losses++;
+            case TIMEOUT -> { }
+        }
+    }
+
+    void merge(EncounterStats other) {
+        encounters += other.encounters;
+        wins += other.wins;
+        losses += other.losses;
+        potionsUsed += other.potionsUsed;
+        for (int i = 0; i < turnsToKill.length; i++) {
+            turnsToKill[i] += other.turnsToKill[i];
+        }
+    }
+
+    public long encounters() {
+        return encounters;
+    }
+
+    public long wins() {
+        return wins;
+    }
+
+    public long losses() {
+        return losses;
+    }
+
+    public double winRate() {
+        return encounters == 0 ? 0 : (double) wins / encounters;
+    }
+
+    public double potionsPerEncounter() {
+        return encounters == 0 ? 0 : (double) potionsUsed / encounters;
+    }
+
+    /**
+     * Turns needed to kill the monster in the given fraction of the won encounters, 0 if none was won.
+     */
+    public int turnsToKill(double percentile) {
+        long rank = (long) Math.ceil(percentile * wins);
+        long seen = 0;
+        for (int turns = 0; turns < turnsToKill.length; turns++) {
+            seen += turnsToKill[turns];
+            if (seen >= rank && seen > 0) {
+                return turns;
+            }
+        }
+        return 0;
+    }
+
+    public double meanTurnsToKill() {
+        long total = 0;
+        for (int turns = 0; turns < turnsToKill.length; turns++) {
+            total += turns * turnsToKill[turns];
+        }
+        return wins == 0 ? 0 : (double) total / wins;
+    }
+
+    enum Outcome {
+        WIN,
+        LOSS,
+        TIMEOUT
+    }
+}
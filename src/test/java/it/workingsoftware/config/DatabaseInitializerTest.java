@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.config;
+
+import it.workingsoftware.domain.Weapon;
+import it.workingsoftware.repository.SqliteAdventurerRepository;
+import it.workingsoftware.repository.SqliteConnectionPool;
+import it.workingsoftware.repository.SqliteEncounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseInitializerTest {
+    private static final String DB_PATH = "./test-migrations.db";
+    private static final String JDBC_URL = "jdbc:sqlite:" + DB_PATH;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deleteDatabase();
+    }
+
+    @Test
+    void bringsANewDatabaseToTheLatestVersion() throws Exception {
+        DatabaseInitializer.init(JDBC_URL);
+
+        try (Connection connection = DriverManager.getConnection(JDBC_URL)) {
+            assertEquals(latestVersion(), DatabaseInitializer.schemaVersion(connection));
+            assertTrue(hasIndex(connection, "idx_encounters_adventurer_id"));
+        }
+    }
+
+    @Test
+    void canRunMoreThanOnce() throws Exception {
+        DatabaseInitializer.init(JDBC_URL);
+        DatabaseInitializer.init(JDBC_URL);
+
+        try (Connection connection = DriverManager.getConnection(JDBC_URL)) {
+            assertEquals(latestVersion(), DatabaseInitializer.schemaVersion(connection));
+        }
+    }
+
+    @Test
+    void migratesDatabasesCreatedBeforeTheMigrations() throws Exception {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL);
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE adventurers (id TEXT PRIMARY KEY, name TEXT NOT NULL, weapon TEXT NOT NULL, " +
+                "hp INTEGER NOT NULL, attack INTEGER NOT NULL, defense INTEGER NOT NULL, money INTEGER NOT NULL, " +
+                "number_of_potions INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE encounters (id TEXT PRIMARY KEY, adventurer_id TEXT NOT NULL, " +
+                "monster_name TEXT NOT NULL, monster_hp INTEGER NOT NULL, monster_attack INTEGER NOT NULL, " +
+                "monster_defense INTEGER NOT NULL)");
+            stmt.execute("INSERT INTO adventurers VALUES ('2ffd9e0f-334c-4b16-969c-08fa9da7dc2c', 'Gianni', 'SWORD', 100, 20, 10, 0, 2)");
+            stmt.execute("INSERT INTO encounters VALUES ('82f8ec70-b7b4-4971-b764-3d49e35cd24a', " +
+                "'2ffd9e0f-334c-4b16-969c-08fa9da7dc2c', 'Goblin', 10, 2, 2)");
+        }
+
+        DatabaseInitializer.init(JDBC_URL);
+
+        try (SqliteConnectionPool connectionPool = new SqliteConnectionPool(JDBC_URL, 1)) {
+            UUID adventurerId = UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c");
+            var adventurer = new SqliteAdventurerRepository(connectionPool).findById(adventurerId);
+            var encounter = new SqliteEncounterRepository(connectionPool).findByAdventurerId(adventurerId);
+
+            assertEquals("Gianni", adventurer.orElseThrow().name());
+            assertEquals(List.of(Weapon.SWORD), adventurer.orElseThrow().weapons());
+            assertEquals(UUID.fromString("82f8ec70-b7b4-4971-b764-3d49e35cd24a"), encounter.orElseThrow().id());
+        }
+    }
+
+    @Test
+    void packsTheOldCommaJoinedNamesLikeTheCodecDidThen() {
+        assertEquals(0x00020000, DatabaseInitializer.packWeaponNames("DAGGER,DAGGER"));
+        assertEquals(0x01000001, DatabaseInitializer.packWeaponNames("SWORD,AXE"));
+        assertEquals(0, DatabaseInitializer.packWeaponNames(""));
+        assertThrows(IllegalArgumentException.class, () -> DatabaseInitializer.packWeaponNames("BOW"));
+    }
+
+    private static int latestVersion() {
+        return DatabaseInitializer.MIGRATIONS.get(DatabaseInitializer.MIGRATIONS.size() - 1).version();
+    }
+
+    private static boolean hasIndex(Connection connection, String name) throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        deleteDatabase();
+    }
+
+    private static void deleteDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
+    }
+}
@@ -6,20 +6,43 @@
 
 package it.workingsoftware.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.NewAdventurer;
 import it.workingsoftware.domain.Weapon;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
 import org.junit.jupiter.api.Test;
 
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ConflictResponse;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import it.workingsoftware.domain.Adventurer;
 import it.workingsoftware.domain.AdventurerService;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class CombatControllerTest {
 
@@ -28,7 +51,7 @@ public class CombatControllerTest {
         String name = "Gianni";
         String weapon = "Axe";
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
 
         when(ctx.pathParam("name")).thenReturn(name);
@@ -44,7 +67,7 @@ public class CombatControllerTest {
         String name = "Gianni";
         String weapon = "Daggers";
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
 
         when(ctx.pathParam("name")).thenReturn(name);
@@ -60,7 +83,7 @@ public class CombatControllerTest {
         String name = "Gianni";
         String weapon = "Sword";
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
 
         when(ctx.pathParam("name")).thenReturn(name);
@@ -76,7 +99,7 @@ public class CombatControllerTest {
         String name = "Gianni";
         String weapon = "Fists";
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
 
         when(ctx.pathParam("name")).thenReturn(name);
@@ -87,11 +110,54 @@ public class CombatControllerTest {
         verify(mockAdventurerService).createAdventurer(name, Collections.emptyList());
     }
 
+    @Test
+    void creatingManyCharactersCallsTheCorrectService() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.bodyAsClass(CombatController.CreateAdventurerRequest[].class)).thenReturn(new CombatController.CreateAdventurerRequest[]{
+            new CombatController.CreateAdventurerRequest("Gimli", "axe"),
+            new CombatController.CreateAdventurerRequest("Legolas", "daggers")
+        });
+
+        controller.createAdventurers(ctx);
+
+        verify(mockAdventurerService).createAdventurers(List.of(
+            new NewAdventurer("Gimli", List.of(Weapon.AXE)),
+            new NewAdventurer("Legolas", List.of(Weapon.DAGGER, Weapon.DAGGER))
+        ));
+    }
+
+    @Test
+    void creatingManyCharactersWithoutANameIsABadRequest() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.bodyAsClass(CombatController.CreateAdventurerRequest[].class)).thenReturn(new CombatController.CreateAdventurerRequest[]{
+            new CombatController.CreateAdventurerRequest(null, "axe")
+        });
+
+        assertThrows(BadRequestResponse.class, () -> controller.createAdventurers(ctx));
+    }
+
+    @Test
+    void aNameLongerThanEveryRepositoryCanStoreIsABadRequest() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        // 31 two-byte characters fit, one more does not
+        when(ctx.pathParam("name")).thenReturn("é".repeat(Adventurer.MAX_NAME_BYTES / 2 + 1));
+        when(ctx.pathParam("weapon")).thenReturn("axe");
+
+        assertThrows(BadRequestResponse.class, () -> controller.createAdventurer(ctx));
+        verify(mockAdventurerService, never()).createAdventurer(any(), any());
+    }
+
     @Test
     void startingANewEncounterCallsTheCorrectService() {
         UUID adventurerId = UUID.randomUUID();
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
         when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
 
@@ -104,7 +170,7 @@ public class CombatControllerTest {
     void attackingCallsTheCorrectService() {
         UUID adventurerId = UUID.randomUUID();
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
         when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
 
@@ -113,11 +179,130 @@ public class CombatControllerTest {
         verify(mockAdventurerService).attack(adventurerId);
     }
 
+    @Test
+    void attackingForManyRoundsCallsTheCorrectService() {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(ctx.queryParam("rounds")).thenReturn("5");
+
+        controller.attack(ctx);
+
+        verify(mockAdventurerService).attack(adventurerId, 5);
+    }
+
+    @Test
+    void attackingUntilTheFightIsResolvedIsCappedAtTheMaximumRounds() {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(ctx.queryParam("rounds")).thenReturn("all");
+
+        controller.attack(ctx);
+
+        verify(mockAdventurerService).attack(adventurerId, CombatController.MAX_ROUNDS);
+    }
+
+    @Test
+    void playingAnAdventurerWhoIsInAWebSocketSessionIsAConflict() {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(mockAdventurerService.attack(adventurerId)).thenThrow(new AdventurerInSessionException());
+        when(mockAdventurerService.heal(adventurerId)).thenThrow(new AdventurerInSessionException());
+
+        assertThrows(ConflictResponse.class, () -> controller.attack(ctx));
+        assertThrows(ConflictResponse.class, () -> controller.heal(ctx));
+    }
+
+    @Test
+    void attackingWithAnInvalidNumberOfRoundsIsABadRequest() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(UUID.randomUUID().toString());
+        when(ctx.queryParam("rounds")).thenReturn("0");
+
+        assertThrows(BadRequestResponse.class, () -> controller.attack(ctx));
+    }
+
+    @Test
+    void attackingRendersTheEventsAsSentencesByDefault() {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(ctx.outputStream()).thenReturn(collectingStream(body));
+        when(mockAdventurerService.attack(adventurerId)).thenReturn(List.of(CombatEvent.hit("Gimli", 6)));
+
+        controller.attack(ctx);
+
+        verify(ctx).contentType(ContentType.JSON);
+        assertEquals("[\"Gimli attacks... And hit for 6 damage!\"]", body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void attackingInCompactFormatReturnsTheEventsAsTheyAre() {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(ctx.queryParam("format")).thenReturn("compact");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(ctx.outputStream()).thenReturn(collectingStream(body));
+        when(mockAdventurerService.attack(adventurerId)).thenReturn(List.of(CombatEvent.miss("Gimli")));
+
+        controller.attack(ctx);
+
+        assertEquals("[{\"type\":\"MISS\",\"actor\":\"Gimli\",\"amount\":0}]", body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void attackingAnswersInCborWhenTheClientAcceptsIt() throws Exception {
+        UUID adventurerId = UUID.randomUUID();
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(ctx.queryParam("format")).thenReturn("compact");
+        when(ctx.header(Header.ACCEPT)).thenReturn(Responses.CBOR);
+        when(ctx.outputStream()).thenReturn(collectingStream(body));
+        when(mockAdventurerService.attack(adventurerId)).thenReturn(List.of(CombatEvent.hit("Gimli", 6)));
+
+        controller.attack(ctx);
+
+        verify(ctx).contentType(Responses.CBOR);
+        CombatEvent[] events = new CBORMapper().readValue(body.toByteArray(), CombatEvent[].class);
+        assertEquals(List.of(CombatEvent.hit("Gimli", 6)), List.of(events));
+    }
+
+    @Test
+    void healingWithAnUnknownFormatIsABadRequest() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        when(ctx.pathParam("adventurerId")).thenReturn(UUID.randomUUID().toString());
+        when(ctx.queryParam("format")).thenReturn("xml");
+
+        assertThrows(BadRequestResponse.class, () -> controller.heal(ctx));
+        verify(mockAdventurerService, never()).heal(any());
+    }
+
     @Test
     void healingCallsTheCorrectService() {
         UUID adventurerId = UUID.randomUUID();
         AdventurerService mockAdventurerService = mock(AdventurerService.class);
-        Context ctx = mock(Context.class);
+        Context ctx = mockContext();
         CombatController controller = new CombatController(mockAdventurerService);
         when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
 
@@ -125,4 +310,91 @@ public class CombatControllerTest {
 
         verify(mockAdventurerService).heal(adventurerId);
     }
+
+    @Test
+    void everyRouteIsTimedWithItsResponseStatus() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mock(AdventurerService.class), registry);
+        when(ctx.status()).thenReturn(HttpStatus.OK);
+
+        controller.timed("/heal/{adventurerId}", context -> { }).handle(ctx);
+        assertThrows(BadRequestResponse.class, () -> controller.timed("/heal/{adventurerId}", context -> {
+            throw new BadRequestResponse();
+        }).handle(ctx));
+
+        assertEquals(1, registry.get("combat.http").tags("route", "/heal/{adventurerId}", "status", "200").timer().count());
+        assertEquals(1, registry.get("combat.http").tags("route", "/heal/{adventurerId}", "status", "400").timer().count());
+    }
+
+    @Test
+    void listsAdventurersAsOneJsonLineEach() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mockAdventurerService);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        UUID after = UUID.randomUUID();
+        when(ctx.queryParam("after")).thenReturn(after.toString());
+        when(ctx.queryParam("limit")).thenReturn("2");
+        when(ctx.outputStream()).thenReturn(collectingStream(body));
+        doAnswer(invocation -> {
+            Consumer<Adventurer> consumer = invocation.getArgument(2);
+            consumer.accept(Adventurer.recruit(new UUID(0, 1), "Gimli", List.of(Weapon.AXE)));
+            consumer.accept(Adventurer.recruit(new UUID(0, 2), "Legolas", List.of(Weapon.DAGGER)));
+            return null;
+        }).when(mockAdventurerService).listAdventurers(eq(after), eq(2), any());
+
+        controller.listAdventurers(ctx);
+
+        verify(ctx).contentType(CombatController.NDJSON);
+        String[] lines = body.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"name\":\"Gimli\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"name\":\"Legolas\""));
+    }
+
+    @Test
+    void listingRejectsALimitBelowOne() {
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mock(AdventurerService.class));
+        when(ctx.queryParam("limit")).thenReturn("0");
+
+        assertThrows(BadRequestResponse.class, () -> controller.listAdventurers(ctx));
+    }
+
+    @Test
+    void listingRejectsAnAfterThatIsNotAnId() {
+        Context ctx = mockContext();
+        CombatController controller = new CombatController(mock(AdventurerService.class));
+        when(ctx.queryParam("after")).thenReturn("gimli");
+
+        assertThrows(BadRequestResponse.class, () -> controller.listAdventurers(ctx));
+    }
+
+    /**
+     * A context whose response body is discarded, for the tests that only look at the service calls.
+     */
+    private static Context mockContext() {
+        Context ctx = mock(Context.class);
+        when(ctx.outputStream()).thenReturn(collectingStream(new ByteArrayOutputStream()));
+        return ctx;
+    }
+
+    private static ServletOutputStream collectingStream(ByteArrayOutputStream body) {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        };
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.javalin.websocket.WsCloseStatus;
+import io.javalin.websocket.WsConnectContext;
+import io.javalin.websocket.WsMessageContext;
+import it.workingsoftware.domain.AdventurerService;
+import it.workingsoftware.domain.CombatEvent;
+import it.workingsoftware.domain.CombatSession;
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.Monster;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
+import it.workingsoftware.domain.exception.NoPotionsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+public class CombatSessionControllerTest {
+    private final UUID adventurerId = UUID.randomUUID();
+    private final Encounter encounter = new Encounter(UUID.randomUUID(), adventurerId, new Monster("Goblin", 10, 2, 2));
+    private final Executor writer = Runnable::run;
+
+    @Test
+    void openingASessionSendsTheEncounter() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = new CombatSessionController(mockAdventurerService, writer);
+        when(mockAdventurerService.openSession(adventurerId, writer)).thenReturn(session);
+        when(session.encounter()).thenReturn(encounter);
+        WsConnectContext ctx = connecting("1", null);
+
+        controller.open(ctx);
+
+        verify(ctx).send(encounter);
+    }
+
+    @Test
+    void anUnknownAdventurerClosesTheConnection() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        CombatSessionController controller = new CombatSessionController(mockAdventurerService, writer);
+        when(mockAdventurerService.openSession(adventurerId, writer))
+            .thenThrow(new IllegalArgumentException("Adventurer not found"));
+        WsConnectContext ctx = connecting("1", null);
+
+        controller.open(ctx);
+
+        verify(ctx).closeSession(WsCloseStatus.POLICY_VIOLATION, "Adventurer not found");
+    }
+
+    @Test
+    void anUnknownFormatClosesTheConnectionBeforeOpeningASession() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        CombatSessionController controller = new CombatSessionController(mockAdventurerService, writer);
+        WsConnectContext ctx = connecting("1", "xml");
+
+        controller.open(ctx);
+
+        verify(ctx).closeSession(eq(WsCloseStatus.POLICY_VIOLATION), any());
+        verify(mockAdventurerService, never()).openSession(any(), any());
+    }
+
+    @Test
+    void anAdventurerAlreadyInASessionClosesTheConnection() {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        CombatSessionController controller = new CombatSessionController(mockAdventurerService, writer);
+        when(mockAdventurerService.openSession(adventurerId, writer)).thenThrow(new AdventurerInSessionException());
+        WsConnectContext ctx = connecting("2", null);
+
+        controller.open(ctx);
+
+        verify(ctx).closeSession(WsCloseStatus.POLICY_VIOLATION,
+            "The adventurer is already playing in another session");
+        verify(ctx, never()).send(any(Object.class));
+    }
+
+    @Test
+    void closingTheConnectionClosesTheSession() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+
+        controller.close("1");
+
+        verify(session).close();
+    }
+
+    @Test
+    void unexpectedFailuresAreLoggedButNotSentToTheClient() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+        when(session.attack(1)).thenThrow(new RuntimeException("[SQLITE_IOERR] disk I/O error (UPDATE adventurers)"));
+        WsMessageContext ctx = sending("1", "attack");
+
+        controller.play(ctx);
+
+        verify(ctx).send(Map.of("error", "The turn could not be played"));
+    }
+
+    @Test
+    void aSessionWhoseTurnCouldNotBeStoredIsClosed() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+        when(session.hasFailed()).thenReturn(true);
+        WsMessageContext ctx = sending("1", "attack");
+
+        controller.play(ctx);
+
+        verify(session, never()).attack(anyInt());
+        verify(ctx).closeSession(WsCloseStatus.SERVER_ERROR, "A turn could not be stored");
+    }
+
+    @Test
+    void attacksAreAnsweredWithTheSentencesOfTheTurn() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+        when(session.attack(3)).thenReturn(List.of(CombatEvent.hit("Gimli", 6)));
+        WsMessageContext ctx = sending("1", "attack 3");
+
+        controller.play(ctx);
+
+        verify(ctx).send(List.of("Gimli attacks... And hit for 6 damage!"));
+        verify(ctx, never()).closeSession(any(WsCloseStatus.class), any());
+    }
+
+    @Test
+    void compactSessionsAnswerWithTheEvents() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", "compact", session);
+        when(session.attack(1)).thenReturn(List.of(CombatEvent.miss("Gimli")));
+        WsMessageContext ctx = sending("1", "attack");
+
+        controller.play(ctx);
+
+        verify(ctx).send(List.of(CombatEvent.miss("Gimli")));
+    }
+
+    @Test
+    void theConnectionClosesWhenTheEncounterIsOver() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+        when(session.attack(CombatController.MAX_ROUNDS)).thenReturn(List.of(CombatEvent.death("Goblin")));
+        when(session.isOver()).thenReturn(true);
+        WsMessageContext ctx = sending("1", "attack all");
+
+        controller.play(ctx);
+
+        verify(ctx).send(List.of("Goblin is dead!"));
+        verify(ctx).closeSession(WsCloseStatus.NORMAL_CLOSURE, "The encounter is over");
+    }
+
+    @Test
+    void failedTurnsAndUnknownCommandsAreAnsweredWithAnError() {
+        CombatSession session = mock(CombatSession.class);
+        CombatSessionController controller = opened("1", null, session);
+        when(session.heal()).thenThrow(new NoPotionsException());
+        WsMessageContext heal = sending("1", "heal");
+        WsMessageContext dance = sending("1", "dance");
+
+        controller.play(heal);
+        controller.play(dance);
+
+        verify(heal).send(Map.of("error", "No potions left"));
+        verify(dance).send(Map.of("error", CombatSessionController.COMMANDS));
+    }
+
+    private CombatSessionController opened(String sessionId, String format, CombatSession session) {
+        AdventurerService mockAdventurerService = mock(AdventurerService.class);
+        CombatSessionController controller = new CombatSessionController(mockAdventurerService, writer);
+        when(mockAdventurerService.openSession(adventurerId, writer)).thenReturn(session);
+        when(session.encounter()).thenReturn(encounter);
+        controller.open(connecting(sessionId, format));
+        return controller;
+    }
+
+    private WsConnectContext connecting(String sessionId, String format) {
+        WsConnectContext ctx = mock(WsConnectContext.class);
+        when(ctx.sessionId()).thenReturn(sessionId);
+        when(ctx.pathParam("adventurerId")).thenReturn(adventurerId.toString());
+        when(ctx.queryParam("format")).thenReturn(format);
+        return ctx;
+    }
+
+    private static WsMessageContext sending(String sessionId, String message) {
+        WsMessageContext ctx = mock(WsMessageContext.class);
+        when(ctx.sessionId()).thenReturn(sessionId);
+        when(ctx.message()).thenReturn(message);
+        return ctx;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import io.javalin.http.Context;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MetricsControllerTest {
+
+    @Test
+    void scrapesTheRegistryInPrometheusFormat() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.counter("combat.test").increment();
+        Context ctx = mock(Context.class);
+
+        new MetricsController(registry).metrics(ctx);
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(ctx).contentType(MetricsController.CONTENT_TYPE);
+        verify(ctx).result(body.capture());
+        assertTrue(body.getValue().contains("combat_test_total 1.0"));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.Monster;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class ResponsesTest {
+
+    @Test
+    void answersJsonWithoutAnAcceptHeader() {
+        assertEquals(Responses.JSON_FORMAT, Responses.negotiate(mock(Context.class)));
+    }
+
+    @Test
+    void answersJsonWhenNoAcceptedTypeIsKnown() {
+        assertEquals(Responses.JSON_FORMAT, Responses.negotiate(accepting("text/html, */*;q=0.8")));
+    }
+
+    @Test
+    void picksTheFirstKnownTypeOfTheAcceptHeader() {
+        assertEquals(Responses.SMILE_FORMAT,
+            Responses.negotiate(accepting("text/html, application/x-jackson-smile;q=0.9, application/cbor")));
+        assertEquals(Responses.CBOR_FORMAT, Responses.negotiate(accepting("application/CBOR, application/json")));
+        assertEquals(Responses.JSON_FORMAT, Responses.negotiate(accepting("application/json, application/cbor")));
+    }
+
+    @Test
+    void binaryFormatsCarryTheSamePayloads() throws Exception {
+        Encounter encounter = new Encounter(UUID.randomUUID(), UUID.randomUUID(), new Monster("Goblin", 10, 2, 2));
+
+        byte[] smile = Responses.SMILE_FORMAT.encounter().writeValueAsBytes(encounter);
+
+        assertEquals(encounter, new SmileMapper().readValue(smile, Encounter.class));
+    }
+
+    private static Context accepting(String accept) {
+        Context ctx = mock(Context.class);
+        when(ctx.header(Header.ACCEPT)).thenReturn(accept);
+        return ctx;
+    }
+}
@@ -6,6 +6,7 @@
 
 package it.workingsoftware.domain;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,11 +14,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,12 +37,20 @@ class AdventurerServiceTest {
     EncounterRepository encounterRepository;
     @Mock
     CombatService combatService;
+    @Mock
+    TransactionManager transactionManager;
+    @Mock
+    CombatLogRepository combatLogRepository;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private AdventurerService adventurerService;
 
     @BeforeEach
     void setUp() {
-        adventurerService = new AdventurerService(adventurerRepository, encounterRepository, combatService);
+        lenient().when(transactionManager.inTransaction(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        adventurerService = new AdventurerService(adventurerRepository, encounterRepository, combatService,
+                transactionManager, meterRegistry);
     }
 
     @Test
@@ -54,6 +69,39 @@ class AdventurerServiceTest {
         ));
     }
 
+    @Test
+    void listsAdventurersOnePageAtATime() {
+        List<Adventurer> firstPage = new ArrayList<>();
+        for (int i = 0; i < AdventurerService.LIST_PAGE_SIZE; i++) {
+            firstPage.add(new Adventurer(new UUID(0, i), "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2));
+        }
+        UUID last = firstPage.get(firstPage.size() - 1).id();
+        Adventurer legolas = new Adventurer(new UUID(1, 0), "Legolas", List.of(Weapon.DAGGER), 20, 5, 5, 0, 2);
+        when(adventurerRepository.findPage(null, AdventurerService.LIST_PAGE_SIZE)).thenReturn(firstPage);
+        when(adventurerRepository.findPage(last, 2)).thenReturn(List.of(legolas));
+        List<Adventurer> listed = new ArrayList<>();
+
+        adventurerService.listAdventurers(null, AdventurerService.LIST_PAGE_SIZE + 2, listed::add);
+
+        Assertions.assertEquals(AdventurerService.LIST_PAGE_SIZE + 1, listed.size());
+        Assertions.assertEquals(legolas, listed.get(listed.size() - 1));
+        verify(adventurerRepository, never()).scan(any(), anyInt(), any());
+        Assertions.assertEquals(2, meterRegistry.get("combat.service")
+                .tags("operation", "listAdventurers", "exception", "none").timer().count());
+    }
+
+    @Test
+    void shouldSaveManyNewHeroesAtOnce() {
+        List<Adventurer> adventurers = adventurerService.createAdventurers(List.of(
+                new NewAdventurer("Gimli", List.of(Weapon.AXE)),
+                new NewAdventurer("Aragorn", List.of(Weapon.SWORD))
+        ));
+
+        verify(adventurerRepository).saveAll(adventurers);
+        Assertions.assertEquals(List.of("Gimli", "Aragorn"), adventurers.stream().map(Adventurer::name).toList());
+        Assertions.assertEquals(20, adventurers.get(1).hp());
+    }
+
     @Test
     void canStartANewEncounter() {
         UUID id = UUID.randomUUID();
@@ -94,10 +142,10 @@ class AdventurerServiceTest {
         );
         when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
         when(encounterRepository.findByAdventurerId(adventurerId)).thenReturn(Optional.of(encounter));
-        when(combatService.handleAttack(adventurer, encounter.monster())).thenReturn(new AttackResult(List.of("Attack successful!"),
+        when(combatService.handleAttack(adventurer, encounter.monster())).thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6)),
                 adventurer, encounter.monster()));
 
-        List<String> attack = adventurerService.attack(adventurerId);
+        List<CombatEvent> attack = adventurerService.attack(adventurerId);
 
         Assertions.assertNotNull(attack);
         verify(adventurerRepository).findById(adventurerId);
@@ -105,6 +153,7 @@ class AdventurerServiceTest {
         verify(combatService).handleAttack(adventurer, encounter.monster());
         verify(adventurerRepository).update(adventurer);
         verify(encounterRepository).update(encounter);
+        verify(transactionManager).inTransaction(any());
     }
 
     @Test
@@ -129,9 +178,9 @@ class AdventurerServiceTest {
         when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
         when(encounterRepository.findByAdventurerId(adventurerId)).thenReturn(Optional.of(encounter));
         when(combatService.handleAttack(adventurer, encounter.monster()))
-                .thenReturn(new AttackResult(List.of("Attack successful!"), adventurer, encounter.monster()));
+                .thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6)), adventurer, encounter.monster()));
 
-        List<String> attack = adventurerService.attack(adventurerId);
+        List<CombatEvent> attack = adventurerService.attack(adventurerId);
 
         Assertions.assertNotNull(attack);
         verify(adventurerRepository).findById(adventurerId);
@@ -139,6 +188,7 @@ class AdventurerServiceTest {
         verify(combatService).handleAttack(adventurer, encounter.monster());
         verify(adventurerRepository).update(adventurer);
         verify(encounterRepository).delete(encounter.id());
+        verify(combatService).endEncounter(encounter.id());
     }
 
     @Test
@@ -163,9 +213,9 @@ class AdventurerServiceTest {
         when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
         when(encounterRepository.findByAdventurerId(adventurerId)).thenReturn(Optional.of(encounter));
         when(combatService.handleAttack(adventurer, encounter.monster()))
-                .thenReturn(new AttackResult(List.of("Attack successful!"), adventurer, encounter.monster()));
+                .thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6)), adventurer, encounter.monster()));
 
-        List<String> attack = adventurerService.attack(adventurerId);
+        List<CombatEvent> attack = adventurerService.attack(adventurerId);
 
         Assertions.assertNotNull(attack);
         verify(adventurerRepository).findById(adventurerId);
@@ -173,6 +223,7 @@ class AdventurerServiceTest {
         verify(combatService).handleAttack(adventurer, encounter.monster());
         verify(adventurerRepository).delete(adventurer.id());
         verify(encounterRepository).delete(encounter.id());
+        verify(combatService).endEncounter(encounter.id());
     }
 
     @Test
@@ -207,17 +258,87 @@ class AdventurerServiceTest {
             1
         );
         when(combatService.heal(adventurer, encounter)).thenReturn(new AttackResult(
-            List.of("Gimli heals for 5 hp!"),
+            List.of(CombatEvent.heal("Gimli", 5)),
             healedAdventurer,
             encounter.monster()
         ));
 
-        List<String> actions = adventurerService.heal(adventurerId);
+        List<CombatEvent> events = adventurerService.heal(adventurerId);
 
-        Assertions.assertNotNull(actions);
+        Assertions.assertNotNull(events);
         verify(adventurerRepository).findById(adventurerId);
         verify(encounterRepository).findByAdventurerId(adventurerId);
         verify(combatService).heal(adventurer, encounter);
         verify(adventurerRepository).update(healedAdventurer);
     }
+
+    @Test
+    void manyRoundsAreResolvedInMemoryAndStoredOnce() {
+        UUID adventurerId = UUID.randomUUID();
+        UUID encounterId = UUID.randomUUID();
+        Adventurer adventurer = new Adventurer(adventurerId, "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+        Monster goblin = new Monster("Goblin", 10, 2, 2);
+        Monster woundedGoblin = new Monster("Goblin", 4, 2, 2);
+        Monster deadGoblin = new Monster("Goblin", -2, 2, 2);
+        when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatService.handleAttack(adventurer, goblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6)), adventurer, woundedGoblin));
+        when(combatService.handleAttack(adventurer, woundedGoblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6), CombatEvent.death("Goblin")), adventurer,
+                        deadGoblin));
+
+        List<CombatEvent> events = adventurerService.attack(adventurerId, 10);
+
+        Assertions.assertEquals(List.of(CombatEvent.hit("Gimli", 6), CombatEvent.hit("Gimli", 6),
+                CombatEvent.death("Goblin")), events);
+        verify(adventurerRepository).update(adventurer);
+        verify(encounterRepository).delete(encounterId);
+        verify(encounterRepository, never()).update(any());
+    }
+
+    @Test
+    void shouldTimeEveryOperationTaggedWithItsOutcome() {
+        UUID id = UUID.randomUUID();
+        when(adventurerRepository.findById(id)).thenReturn(Optional.empty());
+
+        adventurerService.createAdventurer("Gimli", List.of(Weapon.AXE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> adventurerService.startEncounter(id));
+
+        Assertions.assertEquals(1, meterRegistry.get("combat.service")
+                .tags("operation", "createAdventurer", "exception", "none").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("combat.service")
+                .tags("operation", "startEncounter", "exception", "IllegalArgumentException").timer().count());
+    }
+
+    @Test
+    void loggedEncountersRollTheDiceOfTheirTurnAndRecordTheAttack() {
+        UUID adventurerId = UUID.randomUUID();
+        UUID encounterId = UUID.randomUUID();
+        Adventurer adventurer = Adventurer.recruit(adventurerId, "Gimli", List.of(Weapon.AXE));
+        Encounter encounter = new Encounter(encounterId, adventurerId, new Monster("Goblin", 10, 2, 2));
+        when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
+        when(encounterRepository.findByAdventurerId(adventurerId)).thenReturn(Optional.of(encounter));
+        when(combatLogRepository.position(encounterId)).thenReturn(Optional.of(new CombatLog.Position(7, 3)));
+        when(combatService.handleAttack(eq(adventurer), eq(encounter.monster()), any(DiceThrower.class)))
+                .thenReturn(new AttackResult(List.of(CombatEvent.miss("Gimli")), adventurer, encounter.monster()));
+        AdventurerService loggingService = new AdventurerService(adventurerRepository, encounterRepository,
+                combatService, transactionManager, meterRegistry, combatLogRepository);
+
+        loggingService.attack(adventurerId, 2);
+
+        verify(combatLogRepository).append(encounterId, CombatLog.Action.attack(3, 2));
+        verify(combatService, never()).handleAttack(any(), any());
+    }
+
+    @Test
+    void cannotReplayAnEncounterWithoutLog() {
+        UUID encounterId = UUID.randomUUID();
+        when(combatLogRepository.findByEncounterId(encounterId)).thenReturn(Optional.empty());
+        AdventurerService loggingService = new AdventurerService(adventurerRepository, encounterRepository,
+                combatService, transactionManager, meterRegistry, combatLogRepository);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> loggingService.replay(encounterId));
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CombatLogTest {
+
+    @Test
+    void consecutiveTurnsDoNotRollShiftedCopiesOfTheSameDice() {
+        for (long seed = 0; seed < 100; seed++) {
+            for (int turn = 0; turn < 100; turn++) {
+                SplittableRandom current = new SplittableRandom(CombatLog.turnSeed(seed, turn));
+                SplittableRandom next = new SplittableRandom(CombatLog.turnSeed(seed, turn + 1));
+                long currentFirst = current.nextLong();
+                long nextFirst = next.nextLong();
+
+                assertNotEquals(currentFirst, nextFirst);
+                assertNotEquals(current.nextLong(), nextFirst);
+            }
+        }
+    }
+}
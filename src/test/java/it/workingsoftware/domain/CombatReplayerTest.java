@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class CombatReplayerTest {
+
+    private static final UUID ENCOUNTER_ID = UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c");
+
+    @Test
+    void replaysTheEventsOfTheLiveFight() {
+        for (long seed = 0; seed < 100; seed++) {
+            Adventurer adventurer = Adventurer.recruit(UUID.randomUUID(), "Gimli", List.of(Weapon.AXE));
+            Monster monster = new Monster("Azog the Defiler", 100, 10, 5);
+            CombatService combatService = new CombatService(new DiceThrower(), new DamageCalculatorService(),
+                new HealService());
+            List<CombatEvent> live = new ArrayList<>();
+            List<CombatLog.Action> actions = new ArrayList<>();
+
+            AttackResult attacked = combatService.handleAttack(adventurer, monster, CombatLog.diceFor(seed, 0));
+            live.addAll(attacked.events());
+            actions.add(CombatLog.Action.attack(0, 1));
+            AttackResult healed = combatService.heal(attacked.updatedAdventurer(),
+                new Encounter(ENCOUNTER_ID, adventurer.id(), attacked.updatedMonster()), CombatLog.diceFor(seed, 1));
+            live.addAll(healed.events());
+            actions.add(CombatLog.Action.heal(1));
+            adventurer = healed.updatedAdventurer();
+            monster = healed.updatedMonster();
+            int turn = 2;
+            while (adventurer.hp() > 0 && monster.hp() > 0) {
+                AttackResult result = combatService.handleAttack(adventurer, monster, CombatLog.diceFor(seed, turn));
+                live.addAll(result.events());
+                adventurer = result.updatedAdventurer();
+                monster = result.updatedMonster();
+                turn++;
+            }
+            actions.add(CombatLog.Action.attack(2, turn - 2));
+            combatService.endEncounter(ENCOUNTER_ID);
+
+            CombatLog log = new CombatLog(ENCOUNTER_ID, seed,
+                Adventurer.recruit(attacked.updatedAdventurer().id(), "Gimli", List.of(Weapon.AXE)),
+                new Monster("Azog the Defiler", 100, 10, 5), actions);
+
+            assertEquals(live, new CombatReplayer().replay(log));
+        }
+    }
+
+    @Test
+    void replaysNothingForAnEncounterWithNoActions() {
+        CombatLog log = new CombatLog(ENCOUNTER_ID, 42, Adventurer.recruit(UUID.randomUUID(), "Gimli",
+            List.of(Weapon.AXE)), new Monster("Goblin", 10, 2, 2), List.of());
+
+        assertTrue(new CombatReplayer().replay(log).isEmpty());
+    }
+}
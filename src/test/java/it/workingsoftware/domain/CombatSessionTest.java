@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.workingsoftware.domain.exception.AdventurerInSessionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CombatSessionTest {
+
+    @Mock
+    AdventurerRepository adventurerRepository;
+    @Mock
+    EncounterRepository encounterRepository;
+    @Mock
+    CombatService combatService;
+    @Mock
+    TransactionManager transactionManager;
+    @Mock
+    CombatLogRepository combatLogRepository;
+
+    private final List<Runnable> writes = new ArrayList<>();
+    private final UUID adventurerId = UUID.randomUUID();
+    private final UUID encounterId = UUID.randomUUID();
+    private final Adventurer adventurer = Adventurer.recruit(adventurerId, "Gimli", List.of(Weapon.AXE));
+    private final Monster goblin = new Monster("Goblin", 10, 2, 2);
+    private AdventurerService adventurerService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.inTransaction(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        adventurerService = new AdventurerService(adventurerRepository, encounterRepository, combatService,
+                transactionManager, new SimpleMeterRegistry(), combatLogRepository);
+        lenient().when(adventurerRepository.findById(adventurerId)).thenReturn(Optional.of(adventurer));
+    }
+
+    @Test
+    void openingASessionStartsAnEncounterIfThereIsNone() {
+        when(encounterRepository.findByAdventurerId(adventurerId)).thenReturn(Optional.empty());
+
+        CombatSession session = adventurerService.openSession(adventurerId, writes::add);
+
+        verify(encounterRepository).save(session.encounter());
+        Assertions.assertEquals(adventurerId, session.encounter().adventurerId());
+    }
+
+    @Test
+    void anAdventurerInASessionCannotPlayElsewhereUntilItIsClosedAndStored() {
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatService.handleAttack(adventurer, goblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.miss("Gimli")), adventurer, goblin));
+        CombatSession session = adventurerService.openSession(adventurerId, writes::add);
+        session.attack(1);
+
+        Assertions.assertThrows(AdventurerInSessionException.class,
+                () -> adventurerService.openSession(adventurerId, writes::add));
+        Assertions.assertThrows(AdventurerInSessionException.class, () -> adventurerService.attack(adventurerId));
+        Assertions.assertThrows(AdventurerInSessionException.class, () -> adventurerService.heal(adventurerId));
+        Assertions.assertThrows(AdventurerInSessionException.class,
+                () -> adventurerService.startEncounter(adventurerId));
+        session.close();
+        // The turn of the session is still queued
+        Assertions.assertThrows(AdventurerInSessionException.class, () -> adventurerService.attack(adventurerId));
+        Assertions.assertThrows(IllegalStateException.class, () -> session.attack(1));
+
+        writes.remove(0).run();
+
+        Assertions.assertEquals(List.of(CombatEvent.miss("Gimli")), adventurerService.attack(adventurerId));
+        Assertions.assertNotSame(session, adventurerService.openSession(adventurerId, writes::add));
+    }
+
+    @Test
+    void aSessionThatFailsToOpenDoesNotHoldTheAdventurer() {
+        UUID unknown = UUID.randomUUID();
+        when(adventurerRepository.findById(unknown)).thenReturn(Optional.empty());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> adventurerService.openSession(unknown, writes::add));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> adventurerService.attack(unknown));
+    }
+
+    @Test
+    void cannotOpenASessionForAnUnknownAdventurer() {
+        UUID unknown = UUID.randomUUID();
+        when(adventurerRepository.findById(unknown)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> adventurerService.openSession(unknown, writes::add));
+    }
+
+    @Test
+    void turnsArePlayedInMemoryAndStoredInOrderByTheWriter() {
+        Monster woundedGoblin = new Monster("Goblin", 4, 2, 2);
+        Adventurer woundedAdventurer = new Adventurer(adventurerId, "Gimli", List.of(Weapon.AXE), 18, 5, 5, 0, 2);
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatService.handleAttack(adventurer, goblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.hit("Gimli", 6)), adventurer, woundedGoblin));
+        when(combatService.handleAttack(adventurer, woundedGoblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.miss("Gimli")), woundedAdventurer, woundedGoblin));
+        CombatSession session = adventurerService.openSession(adventurerId, writes::add);
+
+        Assertions.assertEquals(List.of(CombatEvent.hit("Gimli", 6)), session.attack(1));
+        Assertions.assertEquals(List.of(CombatEvent.miss("Gimli")), session.attack(1));
+
+        verify(adventurerRepository, times(1)).findById(adventurerId);
+        verify(adventurerRepository, never()).update(any());
+        // Each write is queued once the one before it is done
+        while (!writes.isEmpty()) {
+            writes.remove(0).run();
+        }
+        InOrder stored = inOrder(adventurerRepository);
+        stored.verify(adventurerRepository).update(adventurer);
+        stored.verify(adventurerRepository).update(woundedAdventurer);
+        verify(encounterRepository, times(2)).update(new Encounter(encounterId, adventurerId, woundedGoblin));
+        Assertions.assertTrue(session.stored().isDone());
+    }
+
+    @Test
+    void loggedSessionsRollTheDiceOfTheNextTurnEachTime() {
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatLogRepository.position(encounterId)).thenReturn(Optional.of(new CombatLog.Position(7, 3)));
+        when(combatService.handleAttack(eq(adventurer), eq(goblin), any(DiceThrower.class)))
+                .thenReturn(new AttackResult(List.of(CombatEvent.miss("Gimli")), adventurer, goblin));
+        when(combatService.heal(eq(adventurer), any(), any(DiceThrower.class)))
+                .thenReturn(new AttackResult(List.of(CombatEvent.heal("Gimli", 5)), adventurer, goblin));
+        CombatSession session = adventurerService.openSession(adventurerId, Runnable::run);
+
+        session.attack(2);
+        session.heal();
+
+        verify(combatLogRepository).append(encounterId, CombatLog.Action.attack(3, 2));
+        verify(combatLogRepository).append(encounterId, CombatLog.Action.heal(5));
+        verify(combatLogRepository, times(1)).position(encounterId);
+    }
+
+    @Test
+    void noTurnCanBePlayedOnceTheMonsterIsDead() {
+        Monster deadGoblin = new Monster("Goblin", 0, 2, 2);
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatService.handleAttack(adventurer, goblin)).thenReturn(new AttackResult(
+                List.of(CombatEvent.hit("Gimli", 10), CombatEvent.death("Goblin")), adventurer, deadGoblin));
+        CombatSession session = adventurerService.openSession(adventurerId, Runnable::run);
+
+        session.attack(5);
+
+        Assertions.assertTrue(session.isOver());
+        verify(encounterRepository).delete(encounterId);
+        verify(combatService).endEncounter(encounterId);
+        Assertions.assertThrows(IllegalStateException.class, session::heal);
+    }
+
+    @Test
+    void aTurnThatFailsToBeStoredEndsTheSession() {
+        when(encounterRepository.findByAdventurerId(adventurerId))
+                .thenReturn(Optional.of(new Encounter(encounterId, adventurerId, goblin)));
+        when(combatService.handleAttack(adventurer, goblin))
+                .thenReturn(new AttackResult(List.of(CombatEvent.miss("Gimli")), adventurer, goblin));
+        CombatSession session = adventurerService.openSession(adventurerId, writes::add);
+        doThrow(new RuntimeException("disk full")).when(adventurerRepository).update(adventurer);
+
+        session.attack(1);
+        session.attack(1);
+        while (!writes.isEmpty()) {
+            writes.remove(0).run();
+        }
+
+        // The turn queued after the failed one is not stored either
+        verify(adventurerRepository, times(1)).update(adventurer);
+        Assertions.assertTrue(session.hasFailed());
+        Assertions.assertFalse(session.stored().isCompletedExceptionally());
+        Assertions.assertThrows(IllegalStateException.class, () -> session.attack(1));
+    }
+}
@@ -8,10 +8,44 @@ package it.workingsoftware.domain;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class DiceThrowerTest {
 
     @Test
     void rollToHit() {
         new DiceThrower().rollToHit();
     }
+
+    @Test
+    void theSameSeedRollsTheSameSequence() {
+        DiceThrower first = DiceThrower.seeded(42);
+        DiceThrower second = DiceThrower.seeded(42);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(first.rollToHit(), second.rollToHit());
+        }
+    }
+
+    @Test
+    void hitsWhenTheRollIsBelowTheHitChance() {
+        assertTrue(new DiceThrower(() -> new FixedRoll(0.65)).rollToHit());
+        assertFalse(new DiceThrower(() -> new FixedRoll(0.66)).rollToHit());
+    }
+
+    private record FixedRoll(double roll) implements RandomGenerator {
+        @Override
+        public long nextLong() {
+            return 0;
+        }
+
+        @Override
+        public double nextDouble() {
+            return roll;
+        }
+    }
 }
@@ -10,11 +10,17 @@ import it.workingsoftware.domain.exception.NoPotionsException;
 import it.workingsoftware.domain.exception.PotionLimitUsageReachedException;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HealServiceTest {
 
@@ -75,4 +81,52 @@ class HealServiceTest {
 
         assertThrows(PotionLimitUsageReachedException.class, () -> healService.heal(healedAdventurer, encounterId));
     }
+
+    @Test
+    void forgottenEncountersAreNoLongerTracked() {
+        Adventurer adventurer = new Adventurer(null, "Sam", List.of(Weapon.DAGGER), 10, 5, 3, 100, 2);
+        UUID encounterId = UUID.randomUUID();
+        healService.heal(adventurer, encounterId);
+
+        healService.forget(encounterId);
+
+        assertEquals(0, healService.trackedEncounters());
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentHealsInTheSameEncounterSucceeds() throws Exception {
+        Adventurer adventurer = new Adventurer(null, "Pippin", List.of(Weapon.SWORD), 10, 5, 3, 100, 2);
+        UUID encounterId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Adventurer>> heals = executor.invokeAll(
+                Collections.nCopies(64, () -> healService.heal(adventurer, encounterId)));
+            long succeeded = 0;
+            for (Future<Adventurer> heal : heals) {
+                try {
+                    heal.get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof PotionLimitUsageReachedException);
+                }
+            }
+            assertEquals(1, succeeded);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aLiveEncounterNeverHealsTwiceHoweverManyOthersHeal() {
+        Adventurer adventurer = new Adventurer(null, "Merry", List.of(Weapon.SWORD), 10, 5, 3, 100, 2);
+        UUID live = UUID.randomUUID();
+        healService.heal(adventurer, live);
+
+        for (int i = 0; i < 200_000; i++) {
+            healService.heal(adventurer, UUID.randomUUID());
+        }
+
+        assertThrows(PotionLimitUsageReachedException.class, () -> healService.heal(adventurer, live));
+        assertEquals(200_001, healService.trackedEncounters());
+    }
 }
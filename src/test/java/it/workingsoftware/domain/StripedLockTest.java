@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+
+    @Test
+    void theSameIdAlwaysGetsTheSameLock() {
+        StripedLock stripedLock = new StripedLock(16);
+        UUID id = UUID.randomUUID();
+
+        assertSame(stripedLock.lockFor(id), stripedLock.lockFor(UUID.fromString(id.toString())));
+    }
+
+    @Test
+    void workOnTheSameIdIsSerialized() throws Exception {
+        StripedLock stripedLock = new StripedLock(16);
+        UUID id = UUID.randomUUID();
+        int[] counter = {0};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        stripedLock.withLock(id, () -> counter[0]++);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(80_000, counter[0]);
+    }
+
+    @Test
+    void theNumberOfStripesMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(12));
+    }
+}
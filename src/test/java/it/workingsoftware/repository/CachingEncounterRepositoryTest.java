@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.EncounterRepository;
+import it.workingsoftware.domain.Monster;
+import it.workingsoftware.domain.TransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingEncounterRepositoryTest {
+
+    @Mock
+    EncounterRepository delegate;
+
+    private WriteBehindFlusher flusher;
+    private CachingEncounterRepository repository;
+    private final Encounter encounter = new Encounter(UUID.randomUUID(), UUID.randomUUID(), new Monster("Goblin", 10, 2, 2));
+
+    @BeforeEach
+    void setUp() {
+        flusher = new WriteBehindFlusher(TransactionManager.NONE, Duration.ofSeconds(1));
+        repository = new CachingEncounterRepository(delegate, 100, Duration.ofMinutes(1), flusher);
+    }
+
+    @Test
+    void findsANewEncounterByAdventurerWithoutHittingTheDatabase() {
+        repository.save(encounter);
+
+        assertEquals(Optional.of(encounter), repository.findByAdventurerId(encounter.adventurerId()));
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void hidesADeletedEncounterThatIsStillInTheDatabase() {
+        when(delegate.findByAdventurerId(encounter.adventurerId())).thenReturn(Optional.of(encounter));
+        repository.findByAdventurerId(encounter.adventurerId());
+
+        repository.delete(encounter.id());
+
+        assertEquals(Optional.empty(), repository.findByAdventurerId(encounter.adventurerId()));
+    }
+
+    @Test
+    void writesTheLatestStateOnFlush() {
+        Encounter wounded = new Encounter(encounter.id(), encounter.adventurerId(), new Monster("Goblin", 4, 2, 2));
+        repository.save(encounter);
+        repository.update(wounded);
+
+        flusher.flush();
+
+        verify(delegate).save(wounded);
+        verifyNoMoreInteractions(delegate);
+    }
+}
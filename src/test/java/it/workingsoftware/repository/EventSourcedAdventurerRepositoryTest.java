@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.config.DatabaseInitializer;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.Weapon;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EventSourcedAdventurerRepositoryTest {
+
+    private static final String DB_PATH = "./test.db";
+    private static final UUID ID = UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c");
+    private EventSourcedAdventurerRepository repository;
+    private SqliteConnectionPool connectionPool;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deleteDatabase();
+        String connectionString = "jdbc:sqlite:" + DB_PATH;
+        DatabaseInitializer.init(connectionString);
+        connection = DriverManager.getConnection(connectionString);
+        connectionPool = new SqliteConnectionPool(connectionString, 2);
+        repository = new EventSourcedAdventurerRepository(connectionPool);
+
+        repository.save(gimli(20, 2));
+    }
+
+    @Test
+    void returnsTheSavedAdventurer() {
+        assertEquals(gimli(20, 2), repository.findById(ID).orElseThrow());
+        assertFalse(repository.findById(UUID.randomUUID()).isPresent());
+    }
+
+    @Test
+    void updatesAppendOnlyTheNumbersThatChanged() throws Exception {
+        repository.update(gimli(14, 2));
+        repository.update(gimli(19, 1));
+
+        assertEquals(gimli(19, 1), repository.findById(ID).orElseThrow());
+        assertEquals(3, count("adventurer_events"));
+        assertEquals(1, count("adventurer_snapshots"));
+    }
+
+    @Test
+    void takesASnapshotEveryFewEvents() throws Exception {
+        for (int hp = 19; hp > 19 - EventSourcedAdventurerRepository.SNAPSHOT_EVERY - 1; hp--) {
+            repository.update(gimli(hp, 2));
+        }
+
+        assertEquals(gimli(19 - EventSourcedAdventurerRepository.SNAPSHOT_EVERY, 2),
+            repository.findById(ID).orElseThrow());
+        assertEquals(2, count("adventurer_snapshots"));
+    }
+
+    @Test
+    void snapshotsRightAwayWhenTheWeaponsChange() {
+        Adventurer rearmed = new Adventurer(ID, "Gimli", List.of(Weapon.SWORD), 18, 5, 5, 0, 2);
+
+        repository.update(rearmed);
+
+        assertEquals(rearmed, repository.findById(ID).orElseThrow());
+    }
+
+    @Test
+    void aRenameWithNoOtherChangeKeepsTheEarlierSnapshot() throws Exception {
+        Adventurer renamed = new Adventurer(ID, "Gimli figlio di Glóin", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+        Adventurer rearmed = new Adventurer(ID, "Gimli figlio di Glóin", List.of(Weapon.SWORD), 20, 5, 5, 0, 2);
+
+        repository.update(renamed);
+        repository.update(rearmed);
+
+        assertEquals(rearmed, repository.findById(ID).orElseThrow());
+        assertEquals(List.of(gimli(20, 2), renamed, rearmed), repository.history(ID));
+        assertEquals(3, count("adventurer_snapshots"));
+    }
+
+    @Test
+    void savingAnIdThatWasAlreadySavedFails() {
+        repository.delete(ID);
+
+        assertThrows(RuntimeException.class, () -> repository.save(gimli(99, 9)));
+        assertEquals(List.of(gimli(20, 2)), repository.history(ID));
+    }
+
+    @Test
+    void deletedAdventurersAreNotFoundButKeepTheirHistory() {
+        repository.update(gimli(14, 2));
+        repository.update(gimli(19, 1));
+        repository.delete(ID);
+
+        assertFalse(repository.findById(ID).isPresent());
+        assertEquals(List.of(gimli(20, 2), gimli(14, 2), gimli(19, 2), gimli(19, 1)), repository.history(ID));
+    }
+
+    @Test
+    void scansTheLatestVersionOfLiveAdventurers() {
+        UUID deleted = new UUID(0, 1);
+        repository.save(new Adventurer(deleted, "Boromir", List.of(Weapon.SWORD), 20, 5, 5, 0, 2));
+        repository.delete(deleted);
+        repository.update(gimli(11, 1));
+
+        assertEquals(List.of(gimli(11, 1)), repository.findPage(null, 10));
+    }
+
+    @Test
+    void updatingAMissingAdventurerDoesNothing() throws Exception {
+        UUID legolas = UUID.randomUUID();
+        int events = count("adventurer_events");
+
+        repository.update(new Adventurer(legolas, "Legolas", List.of(Weapon.DAGGER), 1, 1, 1, 1, 1));
+
+        assertTrue(repository.history(legolas).isEmpty());
+        assertFalse(repository.findById(legolas).isPresent());
+        assertEquals(events, count("adventurer_events"));
+    }
+
+    private static Adventurer gimli(int hp, int potions) {
+        return new Adventurer(ID, "Gimli", List.of(Weapon.AXE), hp, 5, 5, 0, potions);
+    }
+
+    private int count(String table) throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.getInt(1);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+        connectionPool.close();
+    }
+
+    private static void deleteDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.Weapon;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalAdventurerRepositoryTest {
+
+    private static final UUID ID = UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsEveryFieldAcrossARestart() {
+        Adventurer legolas = new Adventurer(ID, "Légolas", List.of(Weapon.DAGGER, Weapon.DAGGER), 17, 5, 5, 3, 1);
+        try (JournalAdventurerRepository repository = open()) {
+            repository.saveAll(List.of(legolas));
+        }
+
+        try (JournalAdventurerRepository repository = open()) {
+            assertEquals(legolas, repository.findById(ID).orElseThrow());
+        }
+    }
+
+    @Test
+    void scansInTheSameOrderAsTheSqliteIdColumn() {
+        UUID high = UUID.fromString("ffffffff-0000-4000-8000-000000000000");
+        try (JournalAdventurerRepository repository = open()) {
+            repository.save(new Adventurer(high, "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2));
+            repository.save(new Adventurer(ID, "Legolas", List.of(Weapon.DAGGER), 20, 5, 5, 0, 2));
+
+            assertEquals(List.of(ID, high), repository.findPage(null, 5).stream().map(Adventurer::id).toList());
+            assertEquals(List.of(high), repository.findPage(ID, 5).stream().map(Adventurer::id).toList());
+        }
+    }
+
+    @Test
+    void rejectsNamesThatDoNotFitTheRecord() {
+        String name = "G".repeat(JournalAdventurerRepository.MAX_NAME_BYTES + 1);
+        try (JournalAdventurerRepository repository = open()) {
+            assertThrows(IllegalArgumentException.class,
+                () -> repository.save(new Adventurer(ID, name, List.of(Weapon.AXE), 20, 5, 5, 0, 2)));
+            assertFalse(repository.findById(ID).isPresent());
+        }
+    }
+
+    @Test
+    void savesNoneOfABatchWithAnAdventurerThatDoesNotFit() {
+        Adventurer gimli = new Adventurer(ID, "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+        String name = "G".repeat(JournalAdventurerRepository.MAX_NAME_BYTES + 1);
+        Adventurer tooLong = new Adventurer(UUID.randomUUID(), name, List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+        try (JournalAdventurerRepository repository = open()) {
+            assertThrows(IllegalArgumentException.class, () -> repository.saveAll(List.of(gimli, tooLong)));
+            assertFalse(repository.findById(ID).isPresent());
+        }
+    }
+
+    private JournalAdventurerRepository open() {
+        return new JournalAdventurerRepository(dir.resolve("adventurers.journal"));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Encounter;
+import it.workingsoftware.domain.Monster;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalEncounterRepositoryTest {
+
+    private static final Encounter ENCOUNTER = new Encounter(UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c"),
+        UUID.fromString("870d5ef2-8fbe-4ef9-ad23-5a1361df200e"), new Monster("Azog il Goblin", 100, 10, 5));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsEncountersByAdventurerAfterARestart() {
+        try (JournalEncounterRepository repository = open()) {
+            repository.save(ENCOUNTER);
+            repository.update(new Encounter(ENCOUNTER.id(), ENCOUNTER.adventurerId(),
+                new Monster("Azog il Goblin", 94, 10, 5)));
+        }
+
+        try (JournalEncounterRepository repository = open()) {
+            var encounter = repository.findByAdventurerId(ENCOUNTER.adventurerId());
+            assertTrue(encounter.isPresent());
+            assertEquals(94, encounter.get().monster().hp());
+            assertEquals("Azog il Goblin", encounter.get().monster().name());
+        }
+    }
+
+    @Test
+    void theLatestEncounterOfAnAdventurerIsFoundAfterARestart() {
+        UUID latest = null;
+        try (JournalEncounterRepository repository = open()) {
+            for (long i = 100; i > 0; i--) {
+                latest = new UUID(0, i);
+                repository.save(new Encounter(latest, ENCOUNTER.adventurerId(), ENCOUNTER.monster()));
+            }
+        }
+
+        try (JournalEncounterRepository repository = open()) {
+            assertEquals(latest, repository.findByAdventurerId(ENCOUNTER.adventurerId()).orElseThrow().id());
+        }
+    }
+
+    @Test
+    void deletedEncountersAreGoneForGood() {
+        try (JournalEncounterRepository repository = open()) {
+            repository.save(ENCOUNTER);
+            repository.delete(ENCOUNTER.id());
+
+            assertFalse(repository.findByAdventurerId(ENCOUNTER.adventurerId()).isPresent());
+        }
+
+        try (JournalEncounterRepository repository = open()) {
+            assertFalse(repository.findById(ENCOUNTER.id()).isPresent());
+            assertFalse(repository.findByAdventurerId(ENCOUNTER.adventurerId()).isPresent());
+        }
+    }
+
+    @Test
+    void updatingAMissingEncounterDoesNothing() {
+        try (JournalEncounterRepository repository = open()) {
+            repository.update(ENCOUNTER);
+
+            assertFalse(repository.findById(ENCOUNTER.id()).isPresent());
+        }
+    }
+
+    private JournalEncounterRepository open() {
+        return new JournalEncounterRepository(dir.resolve("encounters.journal"));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedJournalTest {
+
+    // 21 bytes of header and 8 of payload, padded to 32
+    private static final int RECORD_SIZE = 32;
+    private static final UUID FIRST = new UUID(0, 1);
+    private static final UUID SECOND = new UUID(0, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void returnsTheLatestValueOfAKey() {
+        try (MappedJournal<Long> journal = open(4)) {
+            journal.put(FIRST, 1L);
+            journal.put(FIRST, 2L);
+
+            assertEquals(Optional.of(2L), journal.get(FIRST));
+            assertEquals(Optional.empty(), journal.get(SECOND));
+        }
+    }
+
+    @Test
+    void replaysTheJournalWhenReopened() {
+        try (MappedJournal<Long> journal = open(4)) {
+            journal.put(FIRST, 1L);
+            journal.put(SECOND, 2L);
+            journal.put(FIRST, 3L);
+            journal.remove(SECOND);
+        }
+
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(Optional.of(3L), journal.get(FIRST));
+            assertFalse(journal.contains(SECOND));
+        }
+    }
+
+    @Test
+    void stopsReplayingAtATornRecordAndDropsWhatFollows() throws Exception {
+        try (MappedJournal<Long> journal = open(4)) {
+            journal.put(FIRST, 1L);
+            journal.put(FIRST, 2L);
+            journal.put(SECOND, 3L);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("values.journal").toFile(), "rw")) {
+            // Corrupt the payload of the second record, as a crash halfway through writing it would
+            file.seek(RECORD_SIZE + 21);
+            file.writeLong(42L);
+        }
+
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(Optional.of(1L), journal.get(FIRST));
+            assertFalse(journal.contains(SECOND));
+            journal.put(FIRST, 4L);
+        }
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(Optional.of(4L), journal.get(FIRST));
+            assertFalse(journal.contains(SECOND));
+        }
+    }
+
+    @Test
+    void compactsInsteadOfGrowingWhenMostRecordsAreStale() throws Exception {
+        try (MappedJournal<Long> journal = open(4)) {
+            for (long i = 0; i < 100; i++) {
+                journal.put(FIRST, i);
+            }
+
+            assertEquals(Optional.of(99L), journal.get(FIRST));
+        }
+        assertEquals(4 * RECORD_SIZE, Files.size(dir.resolve("values.journal")));
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(Optional.of(99L), journal.get(FIRST));
+        }
+    }
+
+    @Test
+    void listsValuesInTheOrderTheyWereLastWrittenAcrossCompactions() {
+        try (MappedJournal<Long> journal = open(4)) {
+            journal.put(FIRST, 1L);
+            journal.put(SECOND, 2L);
+            for (long i = 3; i < 20; i++) {
+                journal.put(i % 2 == 0 ? SECOND : FIRST, i);
+            }
+
+            assertEquals(List.of(18L, 19L), journal.values());
+        }
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(List.of(18L, 19L), journal.values());
+        }
+    }
+
+    @Test
+    void growsWhenMostRecordsAreLive() {
+        try (MappedJournal<Long> journal = open(4)) {
+            for (long i = 0; i < 10; i++) {
+                journal.put(new UUID(1, i), i);
+            }
+        }
+
+        try (MappedJournal<Long> journal = open(4)) {
+            assertEquals(10, journal.values().size());
+            assertTrue(journal.values().containsAll(List.of(0L, 5L, 9L)));
+        }
+    }
+
+    @Test
+    void stopsGrowingAtItsLimitAndCompactsThereWhileAnyRecordIsStale() throws Exception {
+        try (MappedJournal<Long> journal = open(4, 8 * RECORD_SIZE)) {
+            for (long i = 0; i < 5; i++) {
+                journal.put(new UUID(1, i), i);
+            }
+            for (long i = 0; i < 100; i++) {
+                journal.put(FIRST, i);
+            }
+
+            assertEquals(6, journal.values().size());
+            assertEquals(Optional.of(99L), journal.get(FIRST));
+        }
+        assertEquals(8 * RECORD_SIZE, Files.size(dir.resolve("values.journal")));
+    }
+
+    @Test
+    void refusesAPutOnceItsLimitIsFullOfLiveRecords() {
+        try (MappedJournal<Long> journal = open(4, 8 * RECORD_SIZE)) {
+            for (long i = 0; i < 8; i++) {
+                journal.put(new UUID(1, i), i);
+            }
+
+            IllegalStateException full = assertThrows(IllegalStateException.class, () -> journal.put(FIRST, 8L));
+            assertTrue(full.getMessage().contains("at most 8 live records"));
+            assertFalse(journal.contains(FIRST));
+
+            journal.remove(new UUID(1, 0));
+            journal.put(FIRST, 8L);
+            assertEquals(Optional.of(8L), journal.get(FIRST));
+        }
+    }
+
+    private MappedJournal<Long> open(int capacity) {
+        return open(capacity, MappedJournal.MAX_BYTES);
+    }
+
+    private MappedJournal<Long> open(int capacity, int maxBytes) {
+        return new MappedJournal<>(dir.resolve("values.journal"), new MappedJournal.RecordCodec<>() {
+            @Override
+            public int size() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, Long value) {
+                buffer.putLong(value);
+            }
+
+            @Override
+            public Long read(UUID key, ByteBuffer buffer) {
+                return buffer.getLong();
+            }
+        }, capacity, maxBytes);
+    }
+}
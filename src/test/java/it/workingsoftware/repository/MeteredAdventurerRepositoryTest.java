@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.AdventurerRepository;
+import it.workingsoftware.domain.Weapon;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredAdventurerRepositoryTest {
+
+    @Mock
+    AdventurerRepository delegate;
+
+    private final MockClock clock = new MockClock();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    private MeteredAdventurerRepository repository;
+    private final Adventurer adventurer = new Adventurer(UUID.randomUUID(), "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2);
+
+    @BeforeEach
+    void setUp() {
+        repository = new MeteredAdventurerRepository(delegate, registry);
+    }
+
+    @Test
+    void timesEveryCallByMethod() {
+        when(delegate.findById(adventurer.id())).thenReturn(Optional.of(adventurer));
+
+        assertEquals(Optional.of(adventurer), repository.findById(adventurer.id()));
+        repository.update(adventurer);
+        repository.update(adventurer);
+
+        assertEquals(1, registry.get(RepositoryTimer.NAME).tags("method", "findById", "exception", "none").timer().count());
+        assertEquals(2, registry.get(RepositoryTimer.NAME).tags("method", "update", "exception", "none").timer().count());
+        verify(delegate, times(2)).update(adventurer);
+    }
+
+    @Test
+    void aScanIsTimedWithoutTheTimeItsConsumerTakes() {
+        doAnswer(invocation -> {
+            clock.add(3, TimeUnit.MILLISECONDS);
+            invocation.<Consumer<Adventurer>>getArgument(2).accept(adventurer);
+            clock.add(2, TimeUnit.MILLISECONDS);
+            return null;
+        }).when(delegate).scan(isNull(), eq(10), any());
+        List<Adventurer> written = new ArrayList<>();
+
+        repository.scan(null, 10, a -> {
+            clock.add(1, TimeUnit.SECONDS);
+            written.add(a);
+        });
+
+        assertEquals(List.of(adventurer), written);
+        assertEquals(5, registry.get(RepositoryTimer.NAME).tags("method", "scan").timer()
+            .totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void tagsFailedCallsWithTheException() {
+        doThrow(new RuntimeException("database is locked")).when(delegate).save(adventurer);
+
+        assertThrows(RuntimeException.class, () -> repository.save(adventurer));
+
+        assertEquals(1, registry.get(RepositoryTimer.NAME)
+            .tags("repository", "adventurer", "method", "save", "exception", "RuntimeException").timer().count());
+    }
+}
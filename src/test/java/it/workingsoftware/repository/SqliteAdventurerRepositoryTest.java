@@ -20,25 +20,28 @@ import java.sql.DriverManager;
 import java.sql.Statement;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SqliteAdventurerRepositoryTest {
     private static final String DB_PATH = "./test2.db";
     private SqliteAdventurerRepository repository;
+    private SqliteConnectionPool connectionPool;
     private Connection connection;
 
     @BeforeEach
     void setUp() throws Exception {
-        Files.deleteIfExists(Path.of(DB_PATH));
+        deleteDatabase();
         String connectionString = "jdbc:sqlite:" + DB_PATH;
         connection = DriverManager.getConnection(connectionString);
-        repository = new SqliteAdventurerRepository(DriverManager.getConnection(connectionString));
+        connectionPool = new SqliteConnectionPool(connectionString, 2);
+        repository = new SqliteAdventurerRepository(connectionPool);
 
         DatabaseInitializer.init(connectionString);
         try (Statement stmt = connection.createStatement()) {
-            stmt.execute("INSERT INTO adventurers (id, name, weapon, hp, attack, defense, money, number_of_potions) " +
-                    "VALUES ('2ffd9e0f-334c-4b16-969c-08fa9da7dc2c', 'Gianni', 'SWORD', 100, 20, 10, 0, 2)");
+            stmt.execute("INSERT INTO adventurers (id, name, weapons, hp, attack, defense, money, number_of_potions) " +
+                    "VALUES (X'2ffd9e0f334c4b16969c08fa9da7dc2c', 'Gianni', " + WeaponCodec.encode(List.of(Weapon.SWORD)) + ", 100, 20, 10, 0, 2)");
         }
     }
 
@@ -78,6 +81,28 @@ public class SqliteAdventurerRepositoryTest {
         assertEquals(120, savedAdventurer.get().hp());
     }
 
+    @Test
+    void shouldSaveManyAdventurersAtOnce() {
+        var adventurers = IntStream.range(0, 1_200)
+                .mapToObj(i -> new Adventurer(UUID.randomUUID(), "Orc " + i, List.of(Weapon.AXE), 20, 5, 5, 0, 2))
+                .toList();
+
+        repository.saveAll(adventurers);
+
+        assertEquals("Orc 0", repository.findById(adventurers.get(0).id()).get().name());
+        assertEquals("Orc 1199", repository.findById(adventurers.get(1_199).id()).get().name());
+    }
+
+    @Test
+    void savingManyAdventurersIsAllOrNothing() {
+        var duplicate = new Adventurer(UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c"), "Gianni", List.of(), 20, 5, 5, 0, 2);
+        var fresh = new Adventurer(UUID.randomUUID(), "Boromir", List.of(Weapon.SWORD), 20, 5, 5, 0, 2);
+
+        assertThrows(RuntimeException.class, () -> repository.saveAll(List.of(fresh, duplicate)));
+
+        assertFalse(repository.findById(fresh.id()).isPresent());
+    }
+
     @Test
     void shouldUpdateAdventurer() {
         var adventurer = repository.findById(UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c")).get();
@@ -98,10 +123,26 @@ public class SqliteAdventurerRepositoryTest {
     }
 
     @Test
-    void shouldMapEmptyWeaponStringToEmptyList() throws Exception {
+    void scansAdventurersInIdOrderFromTheGivenOne() {
+        UUID high = UUID.fromString("ffffffff-0000-4000-8000-000000000000");
+        UUID low = UUID.fromString("00000000-0000-4000-8000-000000000000");
+        repository.saveAll(List.of(
+                new Adventurer(high, "Gimli", List.of(Weapon.AXE), 20, 5, 5, 0, 2),
+                new Adventurer(low, "Legolas", List.of(Weapon.DAGGER, Weapon.DAGGER), 20, 5, 5, 0, 2)));
+
+        var firstPage = repository.findPage(null, 2);
+        var secondPage = repository.findPage(firstPage.get(1).id(), 2);
+
+        assertEquals(List.of("Legolas", "Gianni"), firstPage.stream().map(Adventurer::name).toList());
+        assertEquals(List.of(high), secondPage.stream().map(Adventurer::id).toList());
+        assertTrue(repository.findPage(high, 2).isEmpty());
+    }
+
+    @Test
+    void shouldMapNoWeaponsToEmptyList() throws Exception {
         try (Statement stmt = connection.createStatement()) {
-            stmt.execute("INSERT INTO adventurers (id, name, weapon, hp, attack, defense, money, number_of_potions) " +
-                    "VALUES ('12345678-1234-1234-1234-123456789012', 'Legolas', '', 100, 20, 10, 0, 2)");
+            stmt.execute("INSERT INTO adventurers (id, name, weapons, hp, attack, defense, money, number_of_potions) " +
+                    "VALUES (X'12345678123412341234123456789012', 'Legolas', 0, 100, 20, 10, 0, 2)");
         }
 
         var adventurer = repository.findById(UUID.fromString("12345678-1234-1234-1234-123456789012"));
@@ -124,6 +165,13 @@ public class SqliteAdventurerRepositoryTest {
     @AfterEach
     void tearDown() throws Exception {
         connection.close();
+        connectionPool.close();
+        deleteDatabase();
+    }
+
+    private static void deleteDatabase() throws Exception {
         Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.config.DatabaseInitializer;
+import it.workingsoftware.domain.Adventurer;
+import it.workingsoftware.domain.CombatLog;
+import it.workingsoftware.domain.Monster;
+import it.workingsoftware.domain.Weapon;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SqliteCombatLogRepositoryTest {
+
+    private static final String DB_PATH = "./test.db";
+    private static final UUID ENCOUNTER_ID = UUID.fromString("2ffd9e0f-334c-4b16-969c-08fa9da7dc2c");
+    private SqliteCombatLogRepository repository;
+    private SqliteConnectionPool connectionPool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deleteDatabase();
+        String connectionString = "jdbc:sqlite:" + DB_PATH;
+        DatabaseInitializer.init(connectionString);
+        connectionPool = new SqliteConnectionPool(connectionString, 2);
+        repository = new SqliteCombatLogRepository(connectionPool);
+
+        Adventurer adventurer = new Adventurer(UUID.fromString("870d5ef2-8fbe-4ef9-ad23-5a1361df200e"), "Legolas",
+            List.of(Weapon.DAGGER, Weapon.DAGGER), 20, 5, 5, 0, 2);
+        repository.start(new CombatLog(ENCOUNTER_ID, -42L, adventurer, new Monster("Goblin", 10, 2, 2), List.of()));
+    }
+
+    @Test
+    void shouldStartAtTheFirstTurn() {
+        var position = repository.position(ENCOUNTER_ID);
+
+        assertTrue(position.isPresent());
+        assertEquals(-42L, position.get().seed());
+        assertEquals(0, position.get().nextTurn());
+    }
+
+    @Test
+    void shouldMoveAfterTheLastAction() {
+        repository.append(ENCOUNTER_ID, CombatLog.Action.attack(0, 3));
+        repository.append(ENCOUNTER_ID, CombatLog.Action.heal(3));
+
+        assertEquals(4, repository.position(ENCOUNTER_ID).get().nextTurn());
+    }
+
+    @Test
+    void shouldLoadTheWholeLog() {
+        repository.append(ENCOUNTER_ID, CombatLog.Action.attack(0, 1));
+        repository.append(ENCOUNTER_ID, CombatLog.Action.heal(1));
+        repository.append(ENCOUNTER_ID, CombatLog.Action.attack(2, 1000));
+
+        var log = repository.findByEncounterId(ENCOUNTER_ID);
+
+        assertTrue(log.isPresent());
+        assertEquals(-42L, log.get().seed());
+        assertEquals("Legolas", log.get().adventurer().name());
+        assertEquals(List.of(Weapon.DAGGER, Weapon.DAGGER), log.get().adventurer().weapons());
+        assertEquals(2, log.get().adventurer().numberOfPotions());
+        assertEquals(new Monster("Goblin", 10, 2, 2), log.get().monster());
+        assertEquals(List.of(CombatLog.Action.attack(0, 1), CombatLog.Action.heal(1), CombatLog.Action.attack(2, 1000)),
+            log.get().actions());
+    }
+
+    @Test
+    void returnsEmptyWhenEncounterHasNoLog() {
+        assertFalse(repository.position(UUID.randomUUID()).isPresent());
+        assertFalse(repository.findByEncounterId(UUID.randomUUID()).isPresent());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPool.close();
+    }
+
+    private static void deleteDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
+    }
+}
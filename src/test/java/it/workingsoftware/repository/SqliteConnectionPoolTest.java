@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteConnectionPoolTest {
+    private static final String DB_PATH = "./test-pool.db";
+    private SqliteConnectionPool connectionPool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        deleteDatabase();
+        connectionPool = new SqliteConnectionPool("jdbc:sqlite:" + DB_PATH, 2);
+        connectionPool.write(connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE counters (name TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+                stmt.execute("INSERT INTO counters VALUES ('turns', 1)");
+            }
+        });
+    }
+
+    @Test
+    void usesWriteAheadLogging() {
+        String journalMode = connectionPool.read(connection -> {
+            try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+
+        assertEquals("wal", journalMode);
+    }
+
+    @Test
+    void readersAreNotBlockedByAnOngoingWrite() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch readDone = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> connectionPool.write(connection -> {
+            writing.countDown();
+            try {
+                assertTrue(readDone.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        int value = readCounter();
+        readDone.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, value);
+    }
+
+    @Test
+    void readersCannotWrite() {
+        assertThrows(RuntimeException.class, () -> connectionPool.read(connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                return stmt.executeUpdate("UPDATE counters SET value = 2");
+            }
+        }));
+    }
+
+    @Test
+    void writesAreVisibleToLaterReads() {
+        incrementCounter();
+
+        assertEquals(2, readCounter());
+    }
+
+    @Test
+    void commitsAllTheWritesOfAUnitOfWorkTogether() {
+        connectionPool.inTransaction(() -> {
+            incrementCounter();
+            incrementCounter();
+            assertEquals(3, readCounter());
+            return null;
+        });
+
+        assertEquals(3, readCounter());
+    }
+
+    @Test
+    void rollsBackTheWholeUnitOfWorkWhenItFails() {
+        assertThrows(IllegalStateException.class, () -> connectionPool.inTransaction(() -> {
+            incrementCounter();
+            throw new IllegalStateException("Boom");
+        }));
+
+        assertEquals(1, readCounter());
+    }
+
+    @Test
+    void reusesPreparedStatementsAcrossOperations() {
+        try (SqliteConnectionPool singleReaderPool = new SqliteConnectionPool("jdbc:sqlite:" + DB_PATH, 1)) {
+            PreparedStatement first = singleReaderPool.read(connection -> connection.prepare("SELECT value FROM counters"));
+            PreparedStatement second = singleReaderPool.read(connection -> connection.prepare("SELECT value FROM counters"));
+
+            assertSame(first, second);
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedStatements() throws Exception {
+        try (SqliteConnectionPool smallPool = new SqliteConnectionPool("jdbc:sqlite:" + DB_PATH, 1, 2)) {
+            PreparedStatement evicted = smallPool.read(connection -> connection.prepare("SELECT 1"));
+            int cached = smallPool.read(connection -> {
+                connection.prepare("SELECT 2");
+                connection.prepare("SELECT 3");
+                return connection.cachedStatements();
+            });
+
+            assertEquals(2, cached);
+            assertTrue(evicted.isClosed());
+        }
+    }
+
+    @Test
+    void closesStatementsAfterEachOperationWhenCachingIsDisabled() throws Exception {
+        try (SqliteConnectionPool uncachedPool = new SqliteConnectionPool("jdbc:sqlite:" + DB_PATH, 1, 0)) {
+            PreparedStatement statement = uncachedPool.read(connection -> connection.prepare("SELECT 1"));
+
+            assertTrue(statement.isClosed());
+        }
+    }
+
+    @Test
+    void aReadNestedInAWriteDoesNotCloseTheStatementsOfTheWrite() throws Exception {
+        try (SqliteConnectionPool uncachedPool = new SqliteConnectionPool("jdbc:sqlite:" + DB_PATH, 1, 0)) {
+            uncachedPool.write(connection -> {
+                PreparedStatement update = connection.prepare("UPDATE counters SET value = value + 1");
+                uncachedPool.read(nested -> nested.prepare("SELECT 1"));
+
+                assertFalse(update.isClosed());
+                update.executeUpdate();
+            });
+            PreparedStatement statement = uncachedPool.inTransaction(() -> uncachedPool.read(connection -> {
+                PreparedStatement select = connection.prepare("SELECT value FROM counters");
+                uncachedPool.write(nested -> nested.prepare("SELECT 1"));
+                assertFalse(select.isClosed());
+                return select;
+            }));
+
+            assertTrue(statement.isClosed());
+        }
+        assertEquals(2, readCounter());
+    }
+
+    private void incrementCounter() {
+        connectionPool.write(connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("UPDATE counters SET value = value + 1");
+            }
+        });
+    }
+
+    private int readCounter() {
+        return connectionPool.read(connection -> {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE name = 'turns'")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionPool.close();
+        deleteDatabase();
+    }
+
+    private static void deleteDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
+    }
+}
@@ -19,6 +19,7 @@ import java.sql.DriverManager;
 import java.sql.Statement;
 import java.util.UUID;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -26,18 +27,21 @@ class SqliteEncounterRepositoryTest {
 
     private static final String DB_PATH = "./test.db";
     private SqliteEncounterRepository repository;
+    private SqliteConnectionPool connectionPool;
+    private Connection connection;
 
     @BeforeEach
     void setUp() throws Exception {
-        Files.deleteIfExists(Path.of(DB_PATH));
+        deleteDatabase();
         String connectionString = "jdbc:sqlite:" + DB_PATH;
-        Connection connection = DriverManager.getConnection(connectionString);
-        repository = new SqliteEncounterRepository(DriverManager.getConnection(connectionString));
+        connection = DriverManager.getConnection(connectionString);
+        connectionPool = new SqliteConnectionPool(connectionString, 2);
+        repository = new SqliteEncounterRepository(connectionPool);
 
         DatabaseInitializer.init(connectionString);
         try (Statement stmt = connection.createStatement()) {
             stmt.execute("INSERT INTO encounters (id, adventurer_id, monster_name, monster_hp, monster_attack, monster_defense) " +
-                "VALUES ('2ffd9e0f-334c-4b16-969c-08fa9da7dc2c', '870d5ef2-8fbe-4ef9-ad23-5a1361df200e', 'Goblin', 100, 20, 10)");
+                "VALUES (X'2ffd9e0f334c4b16969c08fa9da7dc2c', X'870d5ef28fbe4ef9ad235a1361df200e', 'Goblin', 100, 20, 10)");
         }
     }
 
@@ -97,4 +101,23 @@ class SqliteEncounterRepositoryTest {
         assertTrue(encounter.isPresent());
         assertEquals("Goblin", encounter.get().monster().name());
     }
+
+    @Test
+    void returnsEmptyWhenAdventurerHasNoEncounter() {
+        var encounter = repository.findByAdventurerId(UUID.randomUUID());
+
+        assertFalse(encounter.isPresent());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+        connectionPool.close();
+    }
+
+    private static void deleteDatabase() throws Exception {
+        Files.deleteIfExists(Path.of(DB_PATH));
+        Files.deleteIfExists(Path.of(DB_PATH + "-wal"));
+        Files.deleteIfExists(Path.of(DB_PATH + "-shm"));
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import it.workingsoftware.domain.Weapon;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeaponCodecTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        for (List<Weapon> weapons : List.of(List.<Weapon>of(), List.of(Weapon.AXE),
+            List.of(Weapon.DAGGER, Weapon.DAGGER), List.of(Weapon.AXE, Weapon.CLUB, Weapon.DAGGER, Weapon.SWORD))) {
+            assertEquals(weapons, WeaponCodec.decode(WeaponCodec.encode(weapons)));
+        }
+    }
+
+    @Test
+    void keepsCountsButNotOrder() {
+        assertEquals(List.of(Weapon.AXE, Weapon.SWORD, Weapon.SWORD),
+            WeaponCodec.decode(WeaponCodec.encode(List.of(Weapon.SWORD, Weapon.AXE, Weapon.SWORD))));
+    }
+
+    @Test
+    void packsEachWeaponAtTheBitsOfItsStoredCode() {
+        assertEquals(0x03020101, WeaponCodec.encode(List.of(Weapon.AXE, Weapon.CLUB, Weapon.DAGGER, Weapon.DAGGER,
+            Weapon.SWORD, Weapon.SWORD, Weapon.SWORD)));
+    }
+
+    @Test
+    void rejectsMoreCopiesThanFitInEightBits() {
+        assertThrows(IllegalArgumentException.class,
+            () -> WeaponCodec.encode(Collections.nCopies(256, Weapon.CLUB)));
+    }
+}
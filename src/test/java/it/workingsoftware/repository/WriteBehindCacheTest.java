@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.workingsoftware.domain.TransactionManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindCacheTest {
+
+    @Mock
+    WriteBehindCache.Store<String> store;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void coalescesAnInsertAndItsUpdatesIntoOneInsert() {
+        WriteBehindCache<String> cache = cache(10);
+        cache.insert(id, "Gimli 20hp");
+        cache.update(id, "Gimli 18hp");
+        cache.update(id, "Gimli 15hp");
+
+        flush(cache);
+
+        verify(store).insert("Gimli 15hp");
+        verifyNoMoreInteractions(store);
+    }
+
+    @Test
+    void dropsAnInsertFollowedByADelete() {
+        WriteBehindCache<String> cache = cache(10);
+        cache.insert(id, "Gimli 20hp");
+        cache.delete(id);
+
+        flush(cache);
+
+        verifyNoInteractions(store);
+        assertEquals(Optional.empty(), cache.find(id, ignored -> Optional.of("stale")));
+    }
+
+    @Test
+    void servesReadsFromMemoryUntilTheEntryExpires() {
+        WriteBehindCache<String> cache = cache(10);
+
+        assertEquals(Optional.of("Gimli"), cache.find(id, ignored -> Optional.of("Gimli")));
+        assertEquals(Optional.of("Gimli"), cache.find(id, ignored -> fail("should be served from memory")));
+
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        assertEquals(Optional.of("Gimli reloaded"), cache.find(id, ignored -> Optional.of("Gimli reloaded")));
+    }
+
+    @Test
+    void unflushedWritesSurviveEviction() {
+        WriteBehindCache<String> cache = cache(1);
+        cache.update(id, "Gimli 15hp");
+        cache.find(UUID.randomUUID(), ignored -> Optional.of("Legolas"));
+
+        assertEquals(Optional.of("Gimli 15hp"), cache.find(id, ignored -> Optional.of("Gimli 20hp")));
+    }
+
+    @Test
+    void failedFlushesAreRetriedWithTheNewerWrites() {
+        WriteBehindCache<String> cache = cache(10);
+        cache.update(id, "Gimli 18hp");
+        WriteBehindCache<String>.Flush failed = cache.drain();
+        cache.delete(id);
+
+        failed.restore();
+        flush(cache);
+
+        verify(store).delete(id);
+        verifyNoMoreInteractions(store);
+    }
+
+    @Test
+    void aWriteThatKeepsFailingIsDroppedWithoutHoldingBackTheOthers() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindFlusher flusher = new WriteBehindFlusher(TransactionManager.NONE, Duration.ofMinutes(1),
+            meterRegistry);
+        WriteBehindCache<String> cache = cache(10);
+        flusher.register(cache);
+        UUID legolas = UUID.randomUUID();
+        doThrow(rejected()).when(store).update("Gimli 18hp");
+        cache.update(id, "Gimli 18hp");
+        cache.update(legolas, "Legolas 12hp");
+
+        assertThrows(RuntimeException.class, flusher::flush);
+        for (int attempt = 0; attempt < WriteBehindCache.MAX_ATTEMPTS; attempt++) {
+            flusher.flush();
+        }
+
+        verify(store).update("Legolas 12hp");
+        assertEquals(0, cache.pendingWrites());
+        assertEquals(1, meterRegistry.counter("combat.cache.dropped").count());
+        flusher.flush();
+        verify(store, times(WriteBehindCache.MAX_ATTEMPTS + 1)).update("Gimli 18hp");
+        // Readers go back to what the database holds
+        assertEquals(Optional.of("Gimli 20hp"), cache.find(id, ignored -> Optional.of("Gimli 20hp")));
+    }
+
+    @Test
+    void aWriteThatFailsForAReasonThatMayPassIsNeverDropped() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindFlusher flusher = new WriteBehindFlusher(TransactionManager.NONE, Duration.ofMinutes(1),
+            meterRegistry);
+        WriteBehindCache<String> cache = cache(10);
+        flusher.register(cache);
+        RuntimeException busy = new RuntimeException("Transaction failed",
+            new SQLiteException("[SQLITE_BUSY] The database file is locked", SQLiteErrorCode.SQLITE_BUSY));
+        doThrow(busy).doThrow(busy).doThrow(busy).doThrow(busy).doThrow(busy).doNothing()
+            .when(store).update("Gimli 18hp");
+        cache.update(id, "Gimli 18hp");
+
+        assertThrows(RuntimeException.class, flusher::flush);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            flusher.flush();
+        }
+
+        verify(store, times(6)).update("Gimli 18hp");
+        assertEquals(0, cache.pendingWrites());
+        assertEquals(0, meterRegistry.counter("combat.cache.dropped").count());
+    }
+
+    @Test
+    void onlyConstraintAndValueErrorsArePermanent() {
+        assertTrue(WriteBehindFlusher.isPermanent(rejected()));
+        assertTrue(WriteBehindFlusher.isPermanent(new IllegalArgumentException("Names are limited to 62 bytes")));
+        assertFalse(WriteBehindFlusher.isPermanent(new RuntimeException("Transaction failed",
+            new SQLiteException("[SQLITE_FULL] database or disk is full", SQLiteErrorCode.SQLITE_FULL))));
+        assertFalse(WriteBehindFlusher.isPermanent(new RuntimeException("Interrupted while waiting for a connection")));
+    }
+
+    @Test
+    void aNewerWriteIsNotDroppedWithTheFailedOne() {
+        WriteBehindFlusher flusher = new WriteBehindFlusher(TransactionManager.NONE, Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+        WriteBehindCache<String> cache = cache(10);
+        flusher.register(cache);
+        doThrow(rejected()).when(store).update("Gimli 18hp");
+        cache.update(id, "Gimli 18hp");
+        assertThrows(RuntimeException.class, flusher::flush);
+        for (int attempt = 1; attempt < WriteBehindCache.MAX_ATTEMPTS; attempt++) {
+            flusher.flush();
+        }
+
+        cache.update(id, "Gimli 15hp");
+        flusher.flush();
+
+        verify(store).update("Gimli 15hp");
+        assertEquals(0, cache.pendingWrites());
+    }
+
+    private static RuntimeException rejected() {
+        return new RuntimeException("Transaction failed", new SQLiteException("[SQLITE_CONSTRAINT_PRIMARYKEY]",
+            SQLiteErrorCode.SQLITE_CONSTRAINT_PRIMARYKEY));
+    }
+
+    private WriteBehindCache<String> cache(int maxEntries) {
+        return new WriteBehindCache<>(store, maxEntries, Duration.ofMinutes(1), clock::get);
+    }
+
+    private static void flush(WriteBehindCache<String> cache) {
+        WriteBehindCache<String>.Flush flush = cache.drain();
+        flush.apply();
+        flush.complete();
+    }
+}
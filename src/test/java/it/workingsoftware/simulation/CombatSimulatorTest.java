@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 Marco Zamprogno and Gianni Bombelli
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ */
+
+package it.workingsoftware.simulation;
+
+import it.workingsoftware.domain.Weapon;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CombatSimulatorTest {
+    private static final Map<String, List<Weapon>> AXE = Map.of("axe", List.of(Weapon.AXE));
+
+    @Test
+    void everyEncounterIsCountedOnce() {
+        Map<String, EncounterStats> byMonster = simulate(1, 50_000, 42).get("axe");
+
+        assertEquals(50_000, byMonster.values().stream().mapToLong(EncounterStats::encounters).sum());
+        assertEquals(Set.of("Azog il Goblin", "Goblin"), byMonster.keySet());
+    }
+
+    @Test
+    void theSameSeedGivesTheSameResultsWhateverTheParallelism() {
+        EncounterStats sequential = simulate(1, 50_000, 7).get("axe").get("Goblin");
+        EncounterStats parallel = simulate(4, 50_000, 7).get("axe").get("Goblin");
+
+        assertEquals(sequential.encounters(), parallel.encounters());
+        assertEquals(sequential.wins(), parallel.wins());
+        assertEquals(sequential.meanTurnsToKill(), parallel.meanTurnsToKill());
+        assertEquals(sequential.potionsPerEncounter(), parallel.potionsPerEncounter());
+    }
+
+    @Test
+    void aNewAdventurerAlwaysBeatsAGoblin() {
+        EncounterStats goblin = simulate(2, 20_000, 1).get("axe").get("Goblin");
+
+        assertEquals(1.0, goblin.winRate());
+        assertTrue(goblin.turnsToKill(0.5) >= 2);
+        assertTrue(goblin.turnsToKill(0.99) >= goblin.turnsToKill(0.5));
+    }
+
+    private static Map<String, Map<String, EncounterStats>> simulate(int parallelism, long encounters, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new CombatSimulator(pool).run(AXE, encounters, seed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}